@@ -0,0 +1,79 @@
+package io.ossnass.advSpring;
+
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+/**
+ * Defines the analyzers used by {@link ReadOnlyService#autocomplete(String, Integer)} and by the
+ * {@link io.ossnass.advSpring.operators.Operation#CONTAINS} {@link io.ossnass.advSpring.operators.SearchFilter}s
+ * <ul>
+ *     <li>{@link AdvSpringAnalysisConfigurer#AUTOCOMPLETE_INDEXING}: indexes every prefix (edge n-gram) of every word,
+ *     lower case and without accents</li>
+ *     <li>{@link AdvSpringAnalysisConfigurer#AUTOCOMPLETE_SEARCH}: the words of the query, lower case and without
+ *     accents, matched against the indexed prefixes</li>
+ *     <li>{@link AdvSpringAnalysisConfigurer#CONTAINS_INDEXING}: indexes every substring (n-gram) of the whole value,
+ *     spaces included, from {@link AdvSpringAnalysisConfigurer#MIN_CONTAINS_LENGTH} to
+ *     {@link AdvSpringAnalysisConfigurer#MAX_CONTAINS_LENGTH} characters, lower case and without accents</li>
+ *     <li>{@link AdvSpringAnalysisConfigurer#CONTAINS_SEARCH}: the whole query, lower case and without accents,
+ *     matched against the indexed substrings</li>
+ * </ul>
+ * Must be declared in the Hibernate Search configuration:
+ * <code>hibernate.search.backend.analysis.configurer=class:io.ossnass.advSpring.AdvSpringAnalysisConfigurer</code>,
+ * when the application has its own configurer, it can extend this class and call <code>super.configure</code>
+ */
+public class AdvSpringAnalysisConfigurer implements LuceneAnalysisConfigurer {
+    /**
+     * The analyzer of the autocomplete fields when indexing
+     */
+    public static final String AUTOCOMPLETE_INDEXING = "advspring_autocomplete_indexing";
+    /**
+     * The analyzer of the autocomplete fields when searching
+     */
+    public static final String AUTOCOMPLETE_SEARCH = "advspring_autocomplete_search";
+    /**
+     * The longest indexed prefix, longer words only match on their first characters
+     */
+    public static final int MAX_PREFIX_LENGTH = 20;
+    /**
+     * The analyzer of the contains fields when indexing
+     */
+    public static final String CONTAINS_INDEXING = "advspring_contains_indexing";
+    /**
+     * The analyzer of the contains fields when searching
+     */
+    public static final String CONTAINS_SEARCH = "advspring_contains_search";
+    /**
+     * The shortest indexed substring, shorter values cannot be searched
+     */
+    public static final int MIN_CONTAINS_LENGTH = 3;
+    /**
+     * The longest indexed substring, longer values are searched by their substrings of this length
+     */
+    public static final int MAX_CONTAINS_LENGTH = 20;
+
+    @Override
+    public void configure(LuceneAnalysisConfigurationContext context) {
+        context.analyzer(AUTOCOMPLETE_INDEXING).custom()
+                .tokenizer("standard")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding")
+                .tokenFilter("edgeNGram")
+                .param("minGramSize", "1")
+                .param("maxGramSize", String.valueOf(MAX_PREFIX_LENGTH));
+        context.analyzer(AUTOCOMPLETE_SEARCH).custom()
+                .tokenizer("standard")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding");
+        context.analyzer(CONTAINS_INDEXING).custom()
+                .tokenizer("keyword")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding")
+                .tokenFilter("nGram")
+                .param("minGramSize", String.valueOf(MIN_CONTAINS_LENGTH))
+                .param("maxGramSize", String.valueOf(MAX_CONTAINS_LENGTH));
+        context.analyzer(CONTAINS_SEARCH).custom()
+                .tokenizer("keyword")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding");
+    }
+}
@@ -0,0 +1,40 @@
+package io.ossnass.advSpring;
+
+import io.ossnass.advSpring.annotations.ControllerInfo;
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.aot.BeanRegistrationAotContribution;
+import org.springframework.beans.factory.aot.BeanRegistrationAotProcessor;
+import org.springframework.beans.factory.support.RegisteredBean;
+
+/**
+ * Registers, for every service and controller bean, the reflection needed when the application is compiled to a native
+ * image:
+ * <ol>
+ *     <li>the declared methods of the services and their superclasses, where the hooks are searched and called</li>
+ *     <li>the constructor of the MapStruct implementation of the controller mapper, created by
+ *     {@link org.mapstruct.factory.Mappers#getMapper(Class)}</li>
+ * </ol>
+ * Hooks are bound by {@link CompiledHook}, in a native image the metafactory is not available, so they are called
+ * through a method handle instead
+ */
+public class AdvSpringAotProcessor implements BeanRegistrationAotProcessor {
+    @Override
+    public BeanRegistrationAotContribution processAheadOfTime(RegisteredBean registeredBean) {
+        var beanClass = registeredBean.getBeanClass();
+        var serviceInfo = beanClass.getAnnotation(ServiceInfo.class);
+        var controllerInfo = beanClass.getAnnotation(ControllerInfo.class);
+        if (serviceInfo == null && controllerInfo == null)
+            return null;
+        return (generationContext, beanRegistrationCode) -> {
+            var reflection = generationContext.getRuntimeHints().reflection();
+            if (serviceInfo != null)
+                for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass())
+                    reflection.registerType(type, MemberCategory.INVOKE_DECLARED_METHODS);
+            if (controllerInfo != null)
+                reflection.registerType(TypeReference.of(controllerInfo.mapper().getName() + "Impl"),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        };
+    }
+}
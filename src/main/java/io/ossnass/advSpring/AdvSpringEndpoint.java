@@ -0,0 +1,94 @@
+package io.ossnass.advSpring;
+
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint <code>advspring</code> reporting the hits, misses and size of the caches of every service, by the
+ * id of the service, the statistics of {@link AsyncHookExecutor} under <code>advspring/hooks</code>, the reuse of the
+ * JPQL generated by {@link JinqStreamService} under <code>advspring/queries</code> and the progress of the reindexes of
+ * {@link SearchIndexer} under <code>advspring/indexing</code>
+ * <p>
+ * A reindex is started by a POST to <code>advspring/indexing/{service id}</code>, with an optional body
+ * <code>{"since": "2024-05-01T10:00:00Z"}</code> to only reindex the rows modified since then
+ * <p>
+ * Must be exposed like any other endpoint, for example <code>management.endpoints.web.exposure.include=advspring</code>
+ */
+@Component
+@Endpoint(id = "advspring")
+public class AdvSpringEndpoint {
+    private final List<ReadOnlyService<?, ?>> services;
+    private final AsyncHookExecutor asyncHookExecutor;
+    private final SearchIndexer searchIndexer;
+    private final JinqStreamService streamService;
+
+    public AdvSpringEndpoint(List<ReadOnlyService<?, ?>> services,
+                             AsyncHookExecutor asyncHookExecutor,
+                             SearchIndexer searchIndexer,
+                             JinqStreamService streamService) {
+        this.services = services;
+        this.asyncHookExecutor = asyncHookExecutor;
+        this.searchIndexer = searchIndexer;
+        this.streamService = streamService;
+    }
+
+    /**
+     * @return the statistics of the caches of every service
+     */
+    @ReadOperation
+    public Map<String, Map<String, Map<String, Long>>> caches() {
+        var result = new TreeMap<String, Map<String, Map<String, Long>>>();
+        for (var service : services) {
+            var serviceInfo = service.getClass().getAnnotation(ServiceInfo.class);
+            result.put(serviceInfo != null ? serviceInfo.id() : service.getClass().getSimpleName(),
+                    service.cacheStatistics());
+        }
+        return result;
+    }
+
+    /**
+     * @param section the section to report, <code>hooks</code>, <code>queries</code> or <code>indexing</code>
+     * @return the statistics of the asynchronous hooks, the reuse of the generated JPQL or the progress of the last
+     * reindex of every service, null (not found) for any other section
+     */
+    @ReadOperation
+    public Map<String, ?> section(@Selector String section) {
+        return switch (section) {
+            case "hooks" -> asyncHookExecutor.statistics();
+            case "queries" -> streamService.statistics();
+            case "indexing" -> searchIndexer.statistics();
+            default -> null;
+        };
+    }
+
+    /**
+     * Starts reindexing the entity of a service, see {@link SearchIndexer#reindex(String, String)}
+     *
+     * @param section   must be <code>indexing</code>
+     * @param serviceId the id of the service
+     * @param since     the time since which the modified rows are reindexed, null for a full reindex
+     * @return the progress of the run, null (no content) for another section
+     * @throws InvalidEndpointRequestException (400) if the service doesn't exist or its entity isn't indexed, the time
+     *                                         is malformed or the service has no modified field
+     */
+    @WriteOperation
+    public Map<String, Object> reindex(@Selector String section, @Selector String serviceId, @Nullable String since) {
+        if (!"indexing".equals(section))
+            return null;
+        try {
+            return searchIndexer.reindex(serviceId, since).report();
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidEndpointRequestException(ex.getMessage(), "Bad reindex");
+        }
+    }
+}
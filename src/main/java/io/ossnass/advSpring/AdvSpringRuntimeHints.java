@@ -0,0 +1,40 @@
+package io.ossnass.advSpring;
+
+import io.ossnass.advSpring.annotations.hooks.*;
+import io.ossnass.advSpring.processor.RegistryIndexProcessor;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Registers the reflection needed by the framework when the application is compiled to a native image:
+ * <ol>
+ *     <li>the index written by {@link RegistryIndexProcessor}</li>
+ *     <li>the constructors of the filters and sorts, created by {@link FilterAndSortInfoService}</li>
+ *     <li>the services, loaded by name from the index</li>
+ *     <li>the <code>value()</code> of the hook annotations, read by {@link ReadOnlyService#loadHooks(java.util.Set)}</li>
+ * </ol>
+ * The hook methods and the mappers are registered per bean by {@link AdvSpringAotProcessor}
+ */
+public class AdvSpringRuntimeHints implements RuntimeHintsRegistrar {
+    private static final List<Class<?>> HOOK_ANNOTATIONS = List.of(PreFetch.class, PostFetch.class, PreAdd.class,
+            PostAdd.class, PreEdit.class, PostEdit.class, PreDelete.class, PostDelete.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources().registerPattern("META-INF/advspring/*");
+        var registry = RegistryClasses.load(classLoader, null);
+        for (var filter : registry.filters())
+            hints.reflection().registerType(filter, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        for (var sort : registry.sorts())
+            hints.reflection().registerType(sort, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        for (var service : registry.services())
+            hints.reflection().registerType(service, MemberCategory.INTROSPECT_DECLARED_METHODS);
+        for (var annotation : HOOK_ANNOTATIONS)
+            hints.reflection().registerType(annotation, MemberCategory.INVOKE_DECLARED_METHODS);
+        //instantiated by Hibernate Search from its configuration
+        hints.reflection().registerType(AdvSpringAnalysisConfigurer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
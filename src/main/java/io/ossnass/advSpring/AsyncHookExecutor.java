@@ -0,0 +1,229 @@
+package io.ossnass.advSpring;
+
+import io.ossnass.advSpring.annotations.hooks.PostAdd;
+import io.ossnass.advSpring.annotations.hooks.PostDelete;
+import io.ossnass.advSpring.annotations.hooks.PostEdit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the asynchronous {@link PostAdd}, {@link PostEdit} and {@link PostDelete} hooks once the write is committed
+ * <p>
+ * The hooks run on a bounded pool configured by:
+ * <ul>
+ *     <li><code>advspring.hooks.async.threads</code>: the number of threads, 4 by default</li>
+ *     <li><code>advspring.hooks.async.queue-capacity</code>: the number of waiting tasks, 10000 by default, when the
+ *     queue is full the task runs on the thread submitting it, slowing the writes down instead of dropping work</li>
+ *     <li><code>advspring.hooks.async.retry-delay-ms</code>: the delay before the first retry of a failing hook,
+ *     doubled on every retry, 1000 by default</li>
+ *     <li><code>advspring.hooks.async.max-retry-delay-ms</code>: the longest delay between two retries, 60000 by
+ *     default</li>
+ *     <li><code>advspring.hooks.async.shutdown-timeout-seconds</code>: how long the shutdown waits for the queued
+ *     tasks, 30 by default</li>
+ * </ul>
+ * A failing hook doesn't hold a thread of the pool while it waits for its retry, the retry is scheduled and the hook
+ * and the ones after it are submitted again once the delay elapsed
+ * <p>
+ * The queued tasks and the scheduled retries are run before the application context closes the data sources, a
+ * retry then runs without waiting for its delay, the statistics are reported by {@link AdvSpringEndpoint}
+ */
+@Component
+public class AsyncHookExecutor extends Loggable implements SmartLifecycle {
+    private final ThreadPoolExecutor executor;
+    /**
+     * Submits the retries to {@link AsyncHookExecutor#executor} once their delay elapsed
+     */
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final long retryDelayMillis;
+    private final long maxRetryDelayMillis;
+    private final long shutdownTimeoutSeconds;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private volatile boolean running;
+
+    public AsyncHookExecutor(@Value("${advspring.hooks.async.threads:4}") int threads,
+                             @Value("${advspring.hooks.async.queue-capacity:10000}") int queueCapacity,
+                             @Value("${advspring.hooks.async.retry-delay-ms:1000}") long retryDelayMillis,
+                             @Value("${advspring.hooks.async.max-retry-delay-ms:60000}") long maxRetryDelayMillis,
+                             @Value("${advspring.hooks.async.shutdown-timeout-seconds:30}")
+                             long shutdownTimeoutSeconds) {
+        var threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            var thread = new Thread(runnable, "advspring-hook-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, pool) -> {
+            callerRuns.increment();
+            runnable.run();
+        });
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            var thread = new Thread(runnable, "advspring-hook-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.retryDelayMillis = retryDelayMillis;
+        this.maxRetryDelayMillis = maxRetryDelayMillis;
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+    }
+
+    /**
+     * Runs tasks one after the other once the current transaction is committed, they are dropped if it is rolled
+     * back, without a transaction they are submitted immediately
+     *
+     * @param tasks the tasks in their order of execution
+     */
+    public void afterCommit(List<Task> tasks) {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(tasks);
+                }
+            });
+        else
+            submit(tasks);
+    }
+
+    private void submit(List<Task> tasks) {
+        submitted.add(tasks.size());
+        execute(tasks, 0, 0);
+    }
+
+    private void execute(List<Task> tasks, int from, int attempt) {
+        //once stopped the tasks run on the calling thread
+        if (executor.isShutdown())
+            run(tasks, from, attempt);
+        else
+            executor.execute(() -> run(tasks, from, attempt));
+    }
+
+    /**
+     * Runs the tasks from an index, the first one being at an attempt, until one of them has to be retried
+     *
+     * @param tasks   the tasks in their order of execution
+     * @param from    the index of the first task to run
+     * @param attempt the number of times the first task already failed
+     */
+    private void run(List<Task> tasks, int from, int attempt) {
+        for (var i = from; i < tasks.size(); i++) {
+            var task = tasks.get(i);
+            var taskAttempt = i == from ? attempt : 0;
+            try {
+                task.action().run();
+                completed.increment();
+            } catch (Exception ex) {
+                if (taskAttempt >= task.retries()) {
+                    failed.increment();
+                    logger.error("Asynchronous hook {} failed after {} attempts, message {}", task.name(),
+                            taskAttempt + 1, ex.getMessage(), ex);
+                    continue;
+                }
+                retried.increment();
+                retry(tasks, i, taskAttempt + 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Schedules the retry of a task and of the tasks after it, the delay doubles on every attempt up to
+     * {@link AsyncHookExecutor#maxRetryDelayMillis}, once stopped the retry runs right away
+     *
+     * @param tasks   the tasks in their order of execution
+     * @param from    the index of the task to retry
+     * @param attempt the number of times the task already failed
+     */
+    private void retry(List<Task> tasks, int from, int attempt) {
+        var delay = Math.min(retryDelayMillis << Math.min(attempt - 1, 20), maxRetryDelayMillis);
+        if (!scheduler.isShutdown()) {
+            try {
+                scheduler.schedule(() -> execute(tasks, from, attempt), delay, TimeUnit.MILLISECONDS);
+                return;
+            } catch (RejectedExecutionException ignored) {
+                //stopped meanwhile
+            }
+        }
+        run(tasks, from, attempt);
+    }
+
+    /**
+     * @return the number of tasks submitted, completed, failed after all their retries, retried, run on the calling
+     * thread because the queue was full, queued, waiting for their retry and running
+     */
+    public Map<String, Long> statistics() {
+        var result = new LinkedHashMap<String, Long>();
+        result.put("submitted", submitted.sum());
+        result.put("completed", completed.sum());
+        result.put("failed", failed.sum());
+        result.put("retried", retried.sum());
+        result.put("callerRuns", callerRuns.sum());
+        result.put("queued", (long) executor.getQueue().size());
+        result.put("delayed", (long) scheduler.getQueue().size());
+        result.put("active", (long) executor.getActiveCount());
+        return result;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        //the scheduled retries are submitted without waiting for their delay
+        for (var retry : scheduler.shutdownNow())
+            retry.run();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS))
+                logger.error("{} asynchronous hooks dropped on shutdown",
+                        executor.shutdownNow().size() + executor.getActiveCount());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server, so the requests still being served can queue their hooks
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * A hook waiting to run
+     *
+     * @param name    the name of the hook, used in the logs
+     * @param retries the number of times the hook is called again when it fails
+     * @param action  calls the hook
+     */
+    public record Task(String name, int retries, Runnable action) {
+    }
+}
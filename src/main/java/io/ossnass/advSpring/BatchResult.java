@@ -0,0 +1,22 @@
+package io.ossnass.advSpring;
+
+import java.util.List;
+
+/**
+ * The result of a batch add, edit or delete of {@link CRUDService}
+ *
+ * @param ids    the ids of the items, in the order of the request, null for the items that failed
+ * @param errors the errors of the failed items, empty when all succeeded
+ * @param <ID>   the id type
+ */
+public record BatchResult<ID>(List<ID> ids, List<BatchError> errors) {
+    /**
+     * The error of an item of a batch
+     *
+     * @param index   the index of the item in the request
+     * @param status  the HTTP status matching the error
+     * @param message the reason of the error, null if unknown
+     */
+    public record BatchError(int index, int status, String message) {
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+
 /**
  * This class is used to create a controller for a CRUD service
  * <p>
@@ -18,7 +20,12 @@ import org.springframework.web.server.ResponseStatusException;
  *     <li>{@link CRUDController#post(Dto)}: creates a new entity</li>
  *     <li>{@link CRUDController#put(Dto)}: edits an existing entity</li>
  *     <li>{@link CRUDController#delete(String)}: deletes an existing entity</li>
+ *     <li>{@link CRUDController#postBatch(List)}: creates new entities in one transaction</li>
+ *     <li>{@link CRUDController#putBatch(List)}: edits existing entities in one transaction</li>
+ *     <li>{@link CRUDController#deleteBatch(String)}: deletes existing entities in one transaction</li>
  * </ul>
+ * The batch functions return a {@link BatchResult}, how a failing item is handled is set by
+ * {@link io.ossnass.advSpring.annotations.ServiceInfo#batchFailureMode()}
  *
  * @param <Entity> the entity type
  * @param <ID>     the id type
@@ -88,7 +95,73 @@ public class CRUDController<Entity extends Deletable, ID, Dto> extends ReadOnlyC
         if (this.controllerInfo.disableDelete())
             throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         try {
-            ((CRUDService<Entity, ID>) service).delete(service.getById(service.convertStringToIds(id.split(",")).get(0)));
+            ((CRUDService<Entity, ID>) service).delete(service.getById(service.convertStringToIds(id).get(0)));
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Creates new entities in one transaction, see {@link CRUDService#saveAll(List)}
+     *
+     * @param dtos the DTOs to create the entities from
+     * @return the ids of the created entities and the errors of the skipped ones, error 409 (conflict) if an entity
+     * already exists and the batch is rolled back, error 500 if something goes wrong
+     */
+    @PostMapping("/batch")
+    public ResponseEntity postBatch(@RequestBody List<Dto> dtos) {
+        if (this.controllerInfo.disableAdd())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        try {
+            return ResponseEntity.ok(((CRUDService<Entity, ID>) service).saveAll(fromDtos(dtos)));
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (EntityExistsException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Edits existing entities in one transaction, see {@link CRUDService#editAll(List)}
+     *
+     * @param dtos the DTOs to edit the entities from
+     * @return the ids of the edited entities and the errors of the skipped ones, error 404 (not found) if an entity
+     * doesn't exist and the batch is rolled back, error 500 if something goes wrong
+     */
+    @PutMapping("/batch")
+    public ResponseEntity putBatch(@RequestBody List<Dto> dtos) {
+        if (this.controllerInfo.disableEdit())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        try {
+            return ResponseEntity.ok(((CRUDService<Entity, ID>) service).editAll(fromDtos(dtos)));
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Deletes existing entities in one transaction, see {@link CRUDService#deleteAll(List)}
+     *
+     * @param ids the ids of the entities to delete, in the format of {@link ReadOnlyController#getOnes}
+     * @return the ids of the deleted entities and the errors of the skipped ones, error 404 (not found) if an entity
+     * doesn't exist and the batch is rolled back, error 400 if the ids are malformed, error 500 if something goes wrong
+     */
+    @DeleteMapping("/batch")
+    public ResponseEntity deleteBatch(@RequestParam("ids") String ids) {
+        if (this.controllerInfo.disableDelete())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        try {
+            return ResponseEntity.ok(((CRUDService<Entity, ID>) service).deleteAll(service.convertStringToIds(ids)));
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (EntityNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         } catch (Exception e) {
@@ -96,6 +169,12 @@ public class CRUDController<Entity extends Deletable, ID, Dto> extends ReadOnlyC
         }
     }
 
+    private List<Entity> fromDtos(List<Dto> dtos) {
+        if (dtos == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+        return dtos.stream().map(mapper::fromDto).toList();
+    }
+
     /*/**
      * Soft deletes an existing entity
      * <p>
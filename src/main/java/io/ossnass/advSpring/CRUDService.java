@@ -1,19 +1,32 @@
 package io.ossnass.advSpring;
 
+import io.ossnass.advSpring.annotations.BatchFailureMode;
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import io.ossnass.advSpring.annotations.WriteMode;
 import io.ossnass.advSpring.annotations.hooks.*;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
-import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * A Service class to provide a service for multiple controllers in the system
@@ -26,6 +39,8 @@ import java.util.*;
  *             <li>save a new using {@link CRUDService#save(Deletable)}</li>
  *             <li>edits an existing using {@link CRUDService#edit(Deletable)}</li>
  *             <li>hard delete an existing using {@link CRUDService#delete(Deletable)}</li>
+ *             <li>the same in batches using {@link CRUDService#saveAll(List)}, {@link CRUDService#editAll(List)} and
+ *             {@link CRUDService#deleteAll(List)}</li>
  *         </ol>
  *     </li>
  *     <li>Provides hooks to be executed before and after the operations based on annotations:
@@ -42,11 +57,32 @@ import java.util.*;
  * @param <ID>     the id of the entity
  */
 public abstract class CRUDService<Entity extends Deletable, ID> extends ReadOnlyService<Entity, ID> {
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+    @Autowired
+    protected AsyncHookExecutor asyncHookExecutor;
+    /**
+     * The number of items written together by the batches
+     */
+    protected final int batchSize;
+    /**
+     * What a batch does when one of its items fails
+     */
+    protected final BatchFailureMode batchFailureMode;
+    /**
+     * How a single entity is written
+     */
+    protected final WriteMode writeMode;
+
     public CRUDService(FilterAndSortInfoService filterService, JpaRepository<Entity, ID> repository, EntityManager em,
                        SearchSession searchSession, JinqStreamService streamService) {
         super(filterService, em, searchSession, streamService, repository);
+        var serviceInfo = this.getClass().getAnnotation(ServiceInfo.class);
+        Assert.isTrue(serviceInfo.batchSize() > 0, "batchSize must be positive");
+        this.batchSize = serviceInfo.batchSize();
+        this.batchFailureMode = serviceInfo.batchFailureMode();
+        this.writeMode = serviceInfo.writeMode();
         this.processHooksInitialization();
-
     }
 
     /**
@@ -68,6 +104,9 @@ public abstract class CRUDService<Entity extends Deletable, ID> extends ReadOnly
      * Saves a new entity into the database
      * <p>
      * Will call functions annotated with {@link PreAdd} annotation before adding and {@link PostAdd} after adding
+     * <p>
+     * In {@link WriteMode#LEAN} mode the existence is not checked beforehand, the entity is persisted and returned
+     * without being read again
      *
      * @param e the entity to save
      * @return the saved entity
@@ -75,13 +114,37 @@ public abstract class CRUDService<Entity extends Deletable, ID> extends ReadOnly
      */
     public Entity save(Entity e) {
         Assert.notNull(e, "entity to add cannot be null");
-        var id = extractId(e);
-        if (id != null && repository.existsById(id))
-            throw new EntityExistsException();
-        var preAddHooks = hooks.get(PreAdd.class);
-        var postAddHooks = hooks.get(PostAdd.class);
+        var preAddHooks = hookChains.get(PreAdd.class);
+        var postAddHooks = hookChains.get(PostAdd.class);
         var objectsToPass = new HashMap<Integer, Object>();
-        return executeCUHooks(e, e, preAddHooks, objectsToPass, postAddHooks);
+        Entity result;
+        if (writeMode == WriteMode.LEAN) {
+            try {
+                result = inTransaction(() -> {
+                    if (preAddHooks.length > 0)
+                        processHooks(e, preAddHooks, objectsToPass);
+                    em.persist(e);
+                    if (postAddHooks.length > 0)
+                        processHooks(e, postAddHooks, objectsToPass);
+                    return e;
+                });
+            } catch (DataIntegrityViolationException | ConstraintViolationException ex) {
+                //raised on commit, or by the persist itself when the id is generated by the database, only a
+                //duplicate key means that the entity exists
+                if (isDuplicateKey(ex))
+                    throw new EntityExistsException(ex.getMessage(), ex);
+                throw ex;
+            }
+        } else {
+            var id = extractId(e);
+            if (id != null && repository.existsById(id))
+                throw new EntityExistsException();
+            result = executeCUHooks(e, e, preAddHooks, objectsToPass, postAddHooks);
+        }
+        EntityChangeTracker.added(entityClass);
+        //a stale copy may be cached when the row was deleted outside the service
+        evictEntity(extractId(result));
+        return result;
     }
 
     /**
@@ -97,6 +160,7 @@ public abstract class CRUDService<Entity extends Deletable, ID> extends ReadOnly
      *         If entity is not found, an {@link EntityNotFoundException} is thrown
      *     </li>
      * </ol>
+     * In {@link WriteMode#LEAN} mode the updated entity is returned without being read again
      *
      * @param e the entity to edit
      * @return the updated entity
@@ -104,21 +168,42 @@ public abstract class CRUDService<Entity extends Deletable, ID> extends ReadOnly
      */
     public Entity edit(Entity e) {
         Assert.notNull(e, "entity to edit cannot be null");
-        var entity = repository.findById(extractId(e));
-        var updatedEntity = entity.map(item -> processUpdate(item, e)).orElseThrow(EntityNotFoundException::new);
-        var preEditHooks = hooks.get(PreEdit.class);
+        //always read from the database, a cached copy could be stale and would overwrite newer values
+        var id = extractId(e);
+        evictEntity(id);
+        var preEditHooks = hookChains.get(PreEdit.class);
         var objectsToPass = new HashMap<Integer, Object>();
-        var postEditHooks = hooks.get(PostEdit.class);
-        return executeCUHooks(e, updatedEntity, preEditHooks, objectsToPass, postEditHooks);
+        var postEditHooks = hookChains.get(PostEdit.class);
+        Entity result;
+        if (writeMode == WriteMode.LEAN) {
+            result = inTransaction(() -> {
+                var entity = findManaged(id);
+                var updatedEntity = processUpdate(entity, e);
+                if (preEditHooks.length > 0)
+                    processHooks(e, preEditHooks, objectsToPass);
+                if (updatedEntity != entity)
+                    updatedEntity = em.merge(updatedEntity);
+                if (postEditHooks.length > 0)
+                    processHooks(updatedEntity, postEditHooks, objectsToPass);
+                return updatedEntity;
+            });
+        } else {
+            var entity = repository.findById(id);
+            var updatedEntity = entity.map(item -> processUpdate(item, e)).orElseThrow(EntityNotFoundException::new);
+            result = executeCUHooks(e, updatedEntity, preEditHooks, objectsToPass, postEditHooks);
+        }
+        EntityChangeTracker.changed(entityClass);
+        evictEntity(id);
+        return result;
     }
 
-    private Entity executeCUHooks(Entity e, Entity updatedEntity, Map<Integer, Method> preHooks,
-                                  HashMap<Integer, Object> objectsToPass, Map<Integer, Method> postHooks) {
-        if (preHooks != null && !preHooks.isEmpty()) {
+    private Entity executeCUHooks(Entity e, Entity updatedEntity, CompiledHook[] preHooks,
+                                  HashMap<Integer, Object> objectsToPass, CompiledHook[] postHooks) {
+        if (preHooks != null && preHooks.length > 0) {
             processHooks(e, preHooks, objectsToPass);
         }
         updatedEntity = repository.saveAndFlush(updatedEntity);
-        if (postHooks != null && !postHooks.isEmpty()) {
+        if (postHooks != null && postHooks.length > 0) {
             processHooks(updatedEntity, postHooks, objectsToPass);
         }
         return repository.findById(extractId(e)).get();
@@ -139,42 +224,387 @@ public abstract class CRUDService<Entity extends Deletable, ID> extends ReadOnly
      * <p>
      * The way it works is the following:
      * <ol>
-     *     <li>First it looks for the entity in the database</li>
+     *     <li>First it looks for the entity in the database, bypassing the entity cache</li>
      *     <li>
      *         If entity is found, all the {@link PreDelete} hooks are called, we delete from the database and then execute all {@link PostDelete}
      *     </li>
      *     <li>if no entity found in the database an {@link EntityNotFoundException} is thrown</li>
      * </ol>
      *
+     * In {@link WriteMode#LEAN} mode the delete and its hooks run in one transaction
+     *
      * @param e the entity to delete
      * @throws EntityNotFoundException if the entity is not in the database
      */
     public void delete(Entity e) {
         Assert.notNull(e, "entity to delete cannot be null");
-        var entityToDelete = repository.findById(extractId(e)).orElseThrow(EntityNotFoundException::new);
-//        var entityToDelete = entity.map(item -> processUpdate(item, e))
-//
-        var preDeleteHooks = hooks.get(PreDelete.class);
-        var postDeleteHooks = hooks.get(PostDelete.class);
-        if (preDeleteHooks != null && !preDeleteHooks.isEmpty()) {
+        if (writeMode == WriteMode.LEAN) {
+            var id = extractId(e);
+            var preDeleteHooks = hookChains.get(PreDelete.class);
+            var postDeleteHooks = hookChains.get(PostDelete.class);
+            inTransaction(() -> {
+                var entityToDelete = findManaged(id);
+                if (preDeleteHooks.length > 0)
+                    processHooks(entityToDelete, preDeleteHooks, null);
+                em.remove(entityToDelete);
+                if (postDeleteHooks.length > 0)
+                    processHooks(entityToDelete, postDeleteHooks, null);
+                return entityToDelete;
+            });
+            EntityChangeTracker.removed(entityClass);
+            evictEntity(id);
+            return;
+        }
+        //always read from the database, a cached copy could be stale or already deleted
+        var id = extractId(e);
+        evictEntity(id);
+        var entityToDelete = repository.findById(id).orElseThrow(EntityNotFoundException::new);
+        var preDeleteHooks = hookChains.get(PreDelete.class);
+        var postDeleteHooks = hookChains.get(PostDelete.class);
+        if (preDeleteHooks != null && preDeleteHooks.length > 0) {
             processHooks(entityToDelete, preDeleteHooks, null);
         }
         repository.delete(entityToDelete);
         repository.flush();
-        if (postDeleteHooks != null && !postDeleteHooks.isEmpty()) {
+        EntityChangeTracker.removed(entityClass);
+        evictEntity(id);
+        if (postDeleteHooks != null && postDeleteHooks.length > 0) {
             processHooks(entityToDelete, postDeleteHooks, null);
         }
     }
 
     /**
-     * Extracts the id of an entity
+     * Runs a write in a transaction, flushed on commit
+     *
+     * @param write the write
+     * @return the result of the write
+     */
+    private Entity inTransaction(Supplier<Entity> write) {
+        return new TransactionTemplate(transactionManager).execute(status -> write.get());
+    }
+
+    /**
+     * Finds an entity attached to the current persistence context
      *
-     * @param e the entity to extract id from
-     * @return the id of the entity
+     * @param id the id of the entity
+     * @return the entity
+     * @throws EntityNotFoundException if the entity doesn't exist in the database
      */
-    protected ID extractId(Entity e) {
-        Assert.notNull(e, "entity to extract its id cannot be null");
-        return (ID) em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(e);
+    private Entity findManaged(ID id) {
+        if (id == null)
+            throw new EntityNotFoundException();
+        var entity = em.find(entityClass, id);
+        if (entity == null)
+            throw new EntityNotFoundException();
+        return entity;
+    }
+
+    /**
+     * Checks whether a write failed because of a duplicate primary or unique key, the other integrity violations (not
+     * null, foreign key, check) don't mean that the entity exists
+     * <p>
+     * SQLState 23505 is a unique violation, 23000 is shared by every integrity violation on MySQL, SQL Server and
+     * Oracle so their vendor codes of the unique violations are checked too
+     *
+     * @param ex the error of the write
+     * @return true if a cause of the error is a duplicate key
+     */
+    static boolean isDuplicateKey(Throwable ex) {
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DuplicateKeyException)
+                return true;
+            if (cause instanceof SQLException sqlException) {
+                var state = sqlException.getSQLState();
+                if ("23505".equals(state))
+                    return true;
+                if ("23000".equals(state))
+                    //MySQL and MariaDB 1062, SQL Server 2601 and 2627, Oracle ORA-00001
+                    return switch (sqlException.getErrorCode()) {
+                        case 1062, 2601, 2627, 1 -> true;
+                        default -> false;
+                    };
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Saves new entities into the database in one transaction
+     * <p>
+     * Works like {@link CRUDService#save(Deletable)} for every entity, the entities are inserted by groups of
+     * {@link ServiceInfo#batchSize()} using JDBC batching and the {@link PostAdd} hooks of a group are called once it
+     * is inserted
+     * <p>
+     * The preset ids of a group are checked with one query, in {@link WriteMode#LEAN} mode they are not checked and a
+     * duplicate key fails the flush of its group, rolling back the whole batch
+     *
+     * @param entities the entities to save
+     * @return the ids of the saved entities and the errors of the skipped ones
+     * @throws EntityExistsException if an entity already exists and the batch is rolled back
+     */
+    public BatchResult<ID> saveAll(List<Entity> entities) {
+        Assert.notNull(entities, "entities to add cannot be null");
+        var preAddHooks = hookChains.get(PreAdd.class);
+        return runBatch(entities.size(), (from, to, run) -> {
+            //a lean batch leaves the duplicate keys to the database, like a lean save
+            var existing = writeMode == WriteMode.LEAN ? Map.<String, Entity>of() :
+                    loadByIds(presetIds(entities, from, to));
+            var pending = new ArrayList<PendingItem<Entity>>(to - from);
+            for (var i = from; i < to; i++) {
+                var e = entities.get(i);
+                try {
+                    Assert.notNull(e, "entity to add cannot be null");
+                    var id = extractId(e);
+                    if (id != null && existing.containsKey(idKey(id)))
+                        throw new EntityExistsException();
+                    var objectsToPass = new HashMap<Integer, Object>();
+                    if (preAddHooks.length > 0)
+                        processHooks(e, preAddHooks, objectsToPass);
+                    em.persist(e);
+                    pending.add(new PendingItem<>(i, e, objectsToPass));
+                } catch (RuntimeException ex) {
+                    run.fail(i, ex);
+                }
+            }
+            return pending;
+        }, hookChains.get(PostAdd.class), id -> {
+            EntityChangeTracker.added(entityClass);
+            evictEntity(id);
+        });
+    }
+
+    /**
+     * Edits existing entities into the database in one transaction
+     * <p>
+     * Works like {@link CRUDService#edit(Deletable)} for every entity, the entities are loaded and updated by groups of
+     * {@link ServiceInfo#batchSize()} using JDBC batching
+     *
+     * @param entities the entities to edit
+     * @return the ids of the edited entities and the errors of the skipped ones
+     * @throws EntityNotFoundException if an entity doesn't exist and the batch is rolled back
+     */
+    public BatchResult<ID> editAll(List<Entity> entities) {
+        Assert.notNull(entities, "entities to edit cannot be null");
+        var preEditHooks = hookChains.get(PreEdit.class);
+        return runBatch(entities.size(), (from, to, run) -> {
+            var existing = loadByIds(presetIds(entities, from, to));
+            var pending = new ArrayList<PendingItem<Entity>>(to - from);
+            for (var i = from; i < to; i++) {
+                var e = entities.get(i);
+                Entity dbEntity = null;
+                try {
+                    Assert.notNull(e, "entity to edit cannot be null");
+                    var id = extractId(e);
+                    dbEntity = id == null ? null : existing.get(idKey(id));
+                    if (dbEntity == null)
+                        throw new EntityNotFoundException();
+                    var updatedEntity = processUpdate(dbEntity, e);
+                    var objectsToPass = new HashMap<Integer, Object>();
+                    if (preEditHooks.length > 0)
+                        processHooks(e, preEditHooks, objectsToPass);
+                    if (updatedEntity != dbEntity)
+                        updatedEntity = em.merge(updatedEntity);
+                    pending.add(new PendingItem<>(i, updatedEntity, objectsToPass));
+                } catch (RuntimeException ex) {
+                    //the values already copied to the entity must not be flushed
+                    if (dbEntity != null && batchFailureMode == BatchFailureMode.SKIP)
+                        em.detach(dbEntity);
+                    run.fail(i, ex);
+                }
+            }
+            return pending;
+        }, hookChains.get(PostEdit.class), id -> {
+            EntityChangeTracker.changed(entityClass);
+            evictEntity(id);
+        });
+    }
+
+    /**
+     * Deletes entities from the database by their ids in one transaction
+     * <p>
+     * Works like {@link CRUDService#delete(Deletable)} for every entity, the entities are loaded and deleted by groups
+     * of {@link ServiceInfo#batchSize()} using JDBC batching
+     *
+     * @param ids the ids of the entities to delete
+     * @return the ids of the deleted entities and the errors of the skipped ones
+     * @throws EntityNotFoundException if an entity doesn't exist and the batch is rolled back
+     */
+    public BatchResult<ID> deleteAll(List<ID> ids) {
+        Assert.notNull(ids, "ids to delete cannot be null");
+        var preDeleteHooks = hookChains.get(PreDelete.class);
+        return runBatch(ids.size(), (from, to, run) -> {
+            var existing = loadByIds(ids.subList(from, to).stream().filter(Objects::nonNull).toList());
+            var pending = new ArrayList<PendingItem<Entity>>(to - from);
+            for (var i = from; i < to; i++) {
+                try {
+                    var id = ids.get(i);
+                    //removed from the map so a repeated id is not found
+                    var entityToDelete = id == null ? null : existing.remove(idKey(id));
+                    if (entityToDelete == null)
+                        throw new EntityNotFoundException();
+                    if (preDeleteHooks.length > 0)
+                        processHooks(entityToDelete, preDeleteHooks, null);
+                    em.remove(entityToDelete);
+                    pending.add(new PendingItem<>(i, entityToDelete, null));
+                } catch (RuntimeException ex) {
+                    run.fail(i, ex);
+                }
+            }
+            return pending;
+        }, hookChains.get(PostDelete.class), id -> {
+            EntityChangeTracker.removed(entityClass);
+            evictEntity(id);
+        });
+    }
+
+    /**
+     * Returns the ids already set on a group of entities
+     *
+     * @param entities the entities
+     * @param from     the index of the first entity of the group
+     * @param to       the index after the last entity of the group
+     * @return the ids that are not null
+     */
+    private List<ID> presetIds(List<Entity> entities, int from, int to) {
+        var ids = new ArrayList<ID>(to - from);
+        for (var i = from; i < to; i++) {
+            var id = entities.get(i) == null ? null : extractId(entities.get(i));
+            if (id != null)
+                ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Runs a batch in one transaction, by groups of {@link CRUDService#batchSize} items:
+     * <ol>
+     *     <li>the group is prepared: loaded, checked, pre hooks executed and written to the persistence context</li>
+     *     <li>the persistence context is flushed, the statements are sent to the database in JDBC batches</li>
+     *     <li>the post hooks of the group are executed</li>
+     *     <li>the persistence context is cleared to keep the memory used constant</li>
+     * </ol>
+     *
+     * @param size      the number of items
+     * @param prepare   prepares a group of items
+     * @param postHooks the post hooks to execute on every item
+     * @param committed called with the id of every written item once the transaction is committed
+     * @return the result of the batch
+     */
+    private BatchResult<ID> runBatch(int size, BatchGroup<Entity, ID> prepare, CompiledHook[] postHooks,
+                                     Consumer<ID> committed) {
+        var run = new BatchRun(size);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            var session = em.unwrap(Session.class);
+            var previousBatchSize = session.getJdbcBatchSize();
+            session.setJdbcBatchSize(batchSize);
+            try {
+                for (var from = 0; from < size; from += batchSize) {
+                    var pending = prepare.prepare(from, Math.min(from + batchSize, size), run);
+                    flushGroup();
+                    for (var item : pending) {
+                        try {
+                            run.ids.set(item.index(), extractId(item.entity()));
+                            if (postHooks.length > 0)
+                                processHooks(item.entity(), postHooks, item.objectsToPass());
+                        } catch (RuntimeException ex) {
+                            run.fail(item.index(), ex);
+                        }
+                    }
+                    flushGroup();
+                    em.clear();
+                }
+            } finally {
+                session.setJdbcBatchSize(previousBatchSize);
+            }
+        });
+        for (var id : run.ids)
+            if (id != null)
+                committed.accept(id);
+        return new BatchResult<>(Collections.unmodifiableList(run.ids), List.copyOf(run.errors));
+    }
+
+    /**
+     * Flushes a group of a batch, the session cannot be used anymore after a failed flush so an error of the database
+     * rolls back the whole batch whatever the {@link ServiceInfo#batchFailureMode()} is
+     *
+     * @throws EntityExistsException if a key of the group is duplicated
+     */
+    private void flushGroup() {
+        try {
+            em.flush();
+        } catch (RuntimeException ex) {
+            if (isDuplicateKey(ex))
+                throw new EntityExistsException(ex.getMessage(), ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Prepares a group of items of a batch
+     *
+     * @param <E> the entity type
+     * @param <I> the id type
+     */
+    @FunctionalInterface
+    private interface BatchGroup<E extends Deletable, I> {
+        /**
+         * @param from the index of the first item of the group
+         * @param to   the index after the last item of the group
+         * @param run  the batch, used to report the failing items
+         * @return the items written to the persistence context
+         */
+        List<PendingItem<E>> prepare(int from, int to, CRUDService<E, I>.BatchRun run);
+    }
+
+    /**
+     * An item of a batch written to the persistence context
+     *
+     * @param index         the index of the item in the request
+     * @param entity        the entity written
+     * @param objectsToPass the objects returned by the pre hooks, passed to the post hooks
+     * @param <E>           the entity type
+     */
+    private record PendingItem<E>(int index, E entity, Map<Integer, Object> objectsToPass) {
+    }
+
+    /**
+     * The state of a running batch
+     */
+    private class BatchRun {
+        private final List<ID> ids;
+        private final List<BatchResult.BatchError> errors = new ArrayList<>();
+
+        private BatchRun(int size) {
+            this.ids = new ArrayList<>(Collections.nCopies(size, null));
+        }
+
+        /**
+         * Records the failure of an item, or rethrows the error to roll back the batch in
+         * {@link BatchFailureMode#ROLLBACK} mode
+         *
+         * @param index the index of the item
+         * @param ex    the error
+         */
+        private void fail(int index, RuntimeException ex) {
+            if (batchFailureMode == BatchFailureMode.ROLLBACK)
+                throw ex;
+            ids.set(index, null);
+            var status = HttpStatus.INTERNAL_SERVER_ERROR.value();
+            String message = null;
+            if (ex instanceof ResponseStatusException statusException) {
+                status = statusException.getStatusCode().value();
+                message = statusException.getReason();
+            } else if (ex instanceof EntityNotFoundException)
+                status = HttpStatus.NOT_FOUND.value();
+            else if (ex instanceof EntityExistsException || isDuplicateKey(ex))
+                status = HttpStatus.CONFLICT.value();
+            else if (ex instanceof IllegalArgumentException)
+                status = HttpStatus.BAD_REQUEST.value();
+            else
+                logger.error("Error in batch of {} at item {}, message {}", entityClass.getSimpleName(), index,
+                        ex.getMessage(), ex);
+            errors.add(new BatchResult.BatchError(index, status, message));
+        }
     }
 
     /**
@@ -190,45 +620,51 @@ public abstract class CRUDService<Entity extends Deletable, ID> extends ReadOnly
 
     /**
      * Processes the hooks on an entity
+     * <p>
+     * The asynchronous hooks are passed to {@link AsyncHookExecutor} to run once the write is committed, each with its
+     * own {@link CRUDService#snapshot(Deletable)} of the entity, since the entity belongs to the persistence context of
+     * the request
      *
      * @param e             the entity to process
-     * @param hooks         the order hooks to execute
+     * @param hooks         the hooks to execute, sorted by their order
      * @param objectsToPass the extra object from {@link PreEdit} and {@link PreAdd} hooks
      */
-    private void processHooks(Entity e, Map<Integer, Method> hooks, Map<Integer, Object> objectsToPass) {
+    private void processHooks(Entity e, CompiledHook[] hooks, Map<Integer, Object> objectsToPass) {
         Assert.notNull(e, "entity to process hooks for cannot be null");
         Assert.notNull(hooks, "hooks cannot be empty");
-        var keys = hooks.keySet().stream().sorted().toList();
-        for (var key : keys) {
-            var method = hooks.get(key);
-            try {
-                var paramList = new ArrayList<>();
-                paramList.add(e);
-                if (method.getParameterCount() == 2 && objectsToPass != null)
-                    paramList.add(objectsToPass.get(key));
-                if (method.getReturnType().equals(Void.TYPE))
-                    method.invoke(this, paramList.toArray());
-                else {
-                    var o = method.invoke(this, paramList.toArray());
-                    if (objectsToPass != null)
-                        objectsToPass.put(key, o);
-                }
-            } catch (IllegalAccessException | InvocationTargetException ex) {
-                logger.error("Error during processing hooks in {} cannot call the function, message {}",
-                        this.getClass().getSimpleName(), ex.getMessage(), ex);
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
-            } catch (ResponseStatusException | HttpStatusCodeException ex) {
-                var code = 0;
-                if (ex instanceof ResponseStatusException)
-                    code = ((ResponseStatusException) ex).getStatusCode().value();
-                else code = ((HttpStatusCodeException) ex).getStatusCode().value();
-                logger.error("Error during processing hooks in {} cannot call the function, code {}",
-                        this.getClass().getSimpleName(), code);
-                throw ex;
-            } catch (Exception ex) {
-                logger.error("Unknown error occurred, message {}", ex.getMessage(), ex);
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        List<AsyncHookExecutor.Task> asyncTasks = null;
+        for (var hook : hooks) {
+            var extra = objectsToPass != null ? objectsToPass.get(hook.getOrder()) : null;
+            if (hook.isAsync()) {
+                if (asyncTasks == null)
+                    asyncTasks = new ArrayList<>();
+                var copy = snapshot(e);
+                asyncTasks.add(new AsyncHookExecutor.Task(
+                        this.getClass().getSimpleName() + "." + hook.getMethod().getName(), hook.getRetries(),
+                        () -> hook.invoke(this, copy, extra)));
+                continue;
             }
+            var o = invokeHook(hook, e, extra);
+            if (objectsToPass != null && hook.getMethod().getReturnType() != void.class)
+                objectsToPass.put(hook.getOrder(), o);
         }
+        if (asyncTasks != null)
+            asyncHookExecutor.afterCommit(asyncTasks);
+    }
+
+    /**
+     * Copies the basic attributes of an entity, see {@link ReadOnlyService#basicAttributes()}, into a new instance
+     * attached to no persistence context, the associations are left empty
+     *
+     * @param e the entity to copy
+     * @return the copy
+     */
+    private Entity snapshot(Entity e) {
+        var source = PropertyAccessorFactory.forDirectFieldAccess(Hibernate.unproxy(e));
+        var copy = BeanUtils.instantiateClass(entityClass);
+        var target = PropertyAccessorFactory.forDirectFieldAccess(copy);
+        for (var attribute : basicAttributes().keySet())
+            target.setPropertyValue(attribute, source.getPropertyValue(attribute));
+        return copy;
     }
 }
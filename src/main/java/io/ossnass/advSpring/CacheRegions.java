@@ -0,0 +1,40 @@
+package io.ossnass.advSpring;
+
+import io.ossnass.advSpring.annotations.CacheInfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the caches shared between services by their {@link CacheInfo#region()}
+ * <p>
+ * Like {@link EntityChangeTracker} the regions are kept per class loader
+ */
+public final class CacheRegions {
+    private static final Map<String, LruCache<String, Object>> regions = new ConcurrentHashMap<>();
+
+    private CacheRegions() {
+    }
+
+    /**
+     * Returns the cache of a region, creating it when needed
+     *
+     * @param name the name of the region
+     * @param info the configuration of the cache, only used when the region is created
+     * @return the cache of the region, null if disabled
+     */
+    public static LruCache<String, Object> region(String name, CacheInfo info) {
+        if (info.size() <= 0)
+            return null;
+        return regions.computeIfAbsent(name,
+                key -> new LruCache<>(info.size(), TimeUnit.SECONDS.toNanos(info.ttlSeconds())));
+    }
+
+    /**
+     * Removes all the entries of all the regions
+     */
+    public static void clear() {
+        regions.values().forEach(LruCache::clear);
+    }
+}
@@ -0,0 +1,225 @@
+package io.ossnass.advSpring;
+
+import io.ossnass.advSpring.annotations.hooks.PostAdd;
+import io.ossnass.advSpring.annotations.hooks.PostDelete;
+import io.ossnass.advSpring.annotations.hooks.PostEdit;
+import io.ossnass.advSpring.annotations.hooks.PostFetch;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * A hook method bound once, when the service is created, into a functional interface generated by
+ * {@link LambdaMetafactory}, so calling the hook is a plain interface call instead of {@link Method#invoke}
+ * <p>
+ * Supports hooks with 1 or 2 parameters, returning a value or void, the exceptions thrown by the hook are not wrapped.
+ * Every hook is adapted to a single {@link Function2} when compiled, so the call doesn't depend on its shape
+ * <p>
+ * When the metafactory cannot be used (for example when the service class is not accessible from this module),
+ * falls back to a {@link MethodHandle}
+ * <p>
+ * Also holds the asynchronous execution settings of the {@link PostAdd}, {@link PostEdit} and {@link PostDelete} hooks
+ */
+public final class CompiledHook {
+    private final int order;
+    private final Method method;
+    private final Annotation annotation;
+    private final Function2 invoker;
+    private final boolean async;
+    private final int retries;
+
+    private CompiledHook(int order, Method method, Annotation annotation, Function2 invoker) {
+        this.order = order;
+        this.method = method;
+        this.annotation = annotation;
+        this.async = annotation instanceof PostAdd postAdd ? postAdd.async() :
+                annotation instanceof PostEdit postEdit ? postEdit.async() :
+                        annotation instanceof PostDelete postDelete && postDelete.async();
+        this.retries = annotation instanceof PostAdd postAdd ? postAdd.retries() :
+                annotation instanceof PostEdit postEdit ? postEdit.retries() :
+                        annotation instanceof PostDelete postDelete ? postDelete.retries() : 0;
+        if (retries < 0)
+            throw new IllegalArgumentException("Hook %s cannot have negative retries".formatted(method.getName()));
+        if (annotation instanceof PostFetch postFetch && postFetch.chunkSize() < 1)
+            throw new IllegalArgumentException("Hook %s must have a positive chunk size".formatted(method.getName()));
+        this.invoker = invoker;
+    }
+
+    /**
+     * Binds a hook method
+     *
+     * @param method     the hook method, declared in the service class
+     * @param order      the order of the hook
+     * @param annotation the hook annotation on the method
+     * @return the bound hook
+     * @throws IllegalArgumentException if the method doesn't have 1 or 2 parameters or cannot be accessed
+     */
+    public static CompiledHook compile(Method method, int order, Annotation annotation) {
+        var parameterCount = method.getParameterCount();
+        if (parameterCount < 1 || parameterCount > 2)
+            throw new IllegalArgumentException("Hook %s must have 1 or 2 parameters".formatted(method.getName()));
+        var returnsValue = method.getReturnType() != void.class;
+        Class<?> invokerType;
+        if (parameterCount == 1)
+            invokerType = returnsValue ? Function1.class : Consumer1.class;
+        else
+            invokerType = returnsValue ? Function2.class : Consumer2.class;
+        MethodHandles.Lookup lookup;
+        MethodHandle handle;
+        try {
+            lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+            handle = lookup.unreflect(method);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalArgumentException("Hook %s cannot be accessed".formatted(method.getName()), ex);
+        }
+        Function2 invoker;
+        try {
+            invoker = adapt(metafactory(lookup, handle, invokerType, parameterCount, returnsValue));
+        } catch (Throwable ex) {
+            invoker = fallback(handle, parameterCount);
+        }
+        return new CompiledHook(order, method, annotation, invoker);
+    }
+
+    private static Object metafactory(MethodHandles.Lookup lookup, MethodHandle handle, Class<?> invokerType,
+                                      int parameterCount, boolean returnsValue) throws Throwable {
+        //the target is the first parameter, followed by the hook parameters
+        var samType = MethodType.genericMethodType(parameterCount + 1);
+        if (!returnsValue)
+            samType = samType.changeReturnType(void.class);
+        var instantiatedType = handle.type().wrap();
+        if (!returnsValue)
+            instantiatedType = instantiatedType.changeReturnType(void.class);
+        var name = returnsValue ? "apply" : "accept";
+        var site = LambdaMetafactory.metafactory(lookup, name, MethodType.methodType(invokerType), samType, handle,
+                instantiatedType);
+        return site.getTarget().invoke();
+    }
+
+    /**
+     * Adapts the interface generated for the shape of a hook to a {@link Function2}, the hooks with 1 parameter ignore
+     * the extra parameter and the hooks returning void return null
+     *
+     * @param invoker the {@link Function1}, {@link Function2}, {@link Consumer1} or {@link Consumer2} of the hook
+     * @return the hook as a {@link Function2}
+     */
+    private static Function2 adapt(Object invoker) {
+        if (invoker instanceof Function2 function2)
+            return function2;
+        if (invoker instanceof Function1 function1)
+            return (target, argument, extra) -> function1.apply(target, argument);
+        if (invoker instanceof Consumer1 consumer1)
+            return (target, argument, extra) -> {
+                consumer1.accept(target, argument);
+                return null;
+            };
+        var consumer2 = (Consumer2) invoker;
+        return (target, argument, extra) -> {
+            consumer2.accept(target, argument, extra);
+            return null;
+        };
+    }
+
+    private static Function2 fallback(MethodHandle handle, int parameterCount) {
+        //a void hook returns null, a hook with 1 parameter drops the extra one
+        var adapted = handle.asType(MethodType.genericMethodType(parameterCount + 1));
+        if (parameterCount == 1)
+            adapted = MethodHandles.dropArguments(adapted, 2, Object.class);
+        var generic = adapted;
+        return (target, argument, extra) -> {
+            try {
+                return (Object) generic.invokeExact(target, argument, extra);
+            } catch (Throwable ex) {
+                throw CompiledHook.<RuntimeException>sneakyThrow(ex);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> RuntimeException sneakyThrow(Throwable ex) throws T {
+        throw (T) ex;
+    }
+
+    /**
+     * Calls the hook
+     *
+     * @param target   the service owning the hook
+     * @param argument the first parameter of the hook
+     * @param extra    the second parameter of the hook, ignored if the hook has only one parameter
+     * @return the value returned by the hook, null if it returns void
+     */
+    public Object invoke(Object target, Object argument, Object extra) {
+        return invoker.apply(target, argument, extra);
+    }
+
+    /**
+     * @return the order of the hook
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @return the hook method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the hook annotation on the method
+     */
+    public Annotation getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * @return true if the hook runs on {@link AsyncHookExecutor} once the write is committed
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @return the number of times the hook is called again when it fails asynchronously
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Hook with 1 parameter returning a value
+     */
+    @FunctionalInterface
+    public interface Function1 {
+        Object apply(Object target, Object argument);
+    }
+
+    /**
+     * Hook with 2 parameters returning a value, the shape every hook is called through
+     */
+    @FunctionalInterface
+    public interface Function2 {
+        Object apply(Object target, Object argument, Object extra);
+    }
+
+    /**
+     * Hook with 1 parameter returning void
+     */
+    @FunctionalInterface
+    public interface Consumer1 {
+        void accept(Object target, Object argument);
+    }
+
+    /**
+     * Hook with 2 parameters returning void
+     */
+    @FunctionalInterface
+    public interface Consumer2 {
+        void accept(Object target, Object argument, Object extra);
+    }
+}
@@ -0,0 +1,136 @@
+package io.ossnass.advSpring;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the writes done through {@link CRUDService} for every entity class
+ * <p>
+ * Holds 2 values per entity class:
+ * <ul>
+ *     <li>the version: increased on every add, edit and delete, used to invalidate the caches of
+ *     {@link ReadOnlyService}</li>
+ *     <li>the row count: seeded by an unfiltered count then maintained on every add and delete, used to return
+ *     estimated counts without querying the database</li>
+ * </ul>
+ * Writes that don't go through {@link CRUDService} are not tracked
+ * <p>
+ * A write is recorded once the transaction running it is committed, so a reader never caches the data of the previous
+ * version under the new one, nor sees the new version before the data is visible. It is dropped if the transaction is
+ * rolled back, without a transaction it is recorded immediately
+ * <p>
+ * The versions restart from 0 with the process, {@link EntityChangeTracker#epoch()} tells the processes apart
+ */
+public final class EntityChangeTracker {
+    private static final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, AtomicLong> rowCounts = new ConcurrentHashMap<>();
+    private static final String epoch = Long.toString(System.currentTimeMillis(), 36) +
+            Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private EntityChangeTracker() {
+    }
+
+    /**
+     * Returns the current version of an entity class
+     *
+     * @param entityClass the entity class
+     * @return the version
+     */
+    public static long version(Class<?> entityClass) {
+        return versions.computeIfAbsent(entityClass, key -> new AtomicLong()).get();
+    }
+
+    /**
+     * Returns an identifier unique to the running process, so versions of different processes or of a restarted
+     * process are never confused
+     *
+     * @return the identifier of the process
+     */
+    public static String epoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the maintained row count of an entity class
+     *
+     * @param entityClass the entity class
+     * @return the row count or -1 if it was never seeded
+     */
+    public static long rowCount(Class<?> entityClass) {
+        return rowCount0(entityClass).get();
+    }
+
+    /**
+     * Seeds the maintained row count of an entity class with the result of an unfiltered count
+     *
+     * @param entityClass the entity class
+     * @param count       the number of rows
+     */
+    public static void seedRowCount(Class<?> entityClass, long count) {
+        rowCount0(entityClass).set(count);
+    }
+
+    /**
+     * Records that an entity was added
+     *
+     * @param entityClass the entity class
+     */
+    public static void added(Class<?> entityClass) {
+        afterCommit(() -> {
+            rowCount0(entityClass).updateAndGet(value -> value < 0 ? value : value + 1);
+            increment(entityClass);
+        });
+    }
+
+    /**
+     * Records that an entity was deleted
+     *
+     * @param entityClass the entity class
+     */
+    public static void removed(Class<?> entityClass) {
+        afterCommit(() -> {
+            rowCount0(entityClass).updateAndGet(value -> value <= 0 ? value : value - 1);
+            increment(entityClass);
+        });
+    }
+
+    /**
+     * Records that an entity was changed
+     *
+     * @param entityClass the entity class
+     */
+    public static void changed(Class<?> entityClass) {
+        afterCommit(() -> increment(entityClass));
+    }
+
+    /**
+     * Runs an action once the current transaction is committed, it is dropped if the transaction is rolled back,
+     * without a transaction it runs immediately
+     *
+     * @param action the action to run
+     */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        else
+            action.run();
+    }
+
+    private static void increment(Class<?> entityClass) {
+        versions.computeIfAbsent(entityClass, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static AtomicLong rowCount0(Class<?> entityClass) {
+        return rowCounts.computeIfAbsent(entityClass, key -> new AtomicLong(-1));
+    }
+}
@@ -1,6 +1,5 @@
 package io.ossnass.advSpring;
 
-import io.github.classgraph.ClassGraph;
 import io.ossnass.advSpring.annotations.FilterInfo;
 import io.ossnass.advSpring.annotations.ServiceInfo;
 import io.ossnass.advSpring.annotations.SortInfo;
@@ -11,6 +10,7 @@ import io.ossnass.advSpring.operators.SortInfoInternal;
 import org.hibernate.search.mapper.orm.session.SearchSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.lang.reflect.InvocationTargetException;
@@ -18,119 +18,76 @@ import java.util.*;
 
 /**
  * This service is used by {@link ReadOnlyService} and @{@link CRUDService} when initializing the controllers.
- * It essentially scans the class path for filter classes
- * annotated with {@link FilterInfo} and sort classes annotated with {@link SortInfo}
- * and links it with appropriate controllers
+ * It essentially finds the filter classes annotated with {@link FilterInfo} and sort classes annotated with
+ * {@link SortInfo} and links it with appropriate controllers
+ * <p>
+ * The classes are loaded by {@link RegistryClasses#load(ClassLoader, String[])}, from the index written at build time
+ * and by a single scan of the packages not covered by the index, limited to the packages of the
+ * <code>advspring.scan.packages</code> property when set
  */
 @Service
 public class FilterAndSortInfoService {
     private final SearchSession searchSession;
-    private final Map<String, Set<FilterInfoInternal>> filters;
-    private final Map<String, Set<SortInfoInternal>> sorts;
+    private final Map<String, Map<String, FilterInfoInternal>> filters;
+    private final Map<String, Map<String, SortInfoInternal>> sorts;
     private final Logger logger = LoggerFactory.getLogger(FilterAndSortInfoService.class);
     private final JinqStreamService streamService;
-    private List<FilterInfoInternal> _filters;
-    private List<SortInfoInternal> _sorts;
 
-    public FilterAndSortInfoService(SearchSession searchSession, JinqStreamService streamService) {
+    public FilterAndSortInfoService(SearchSession searchSession, JinqStreamService streamService,
+                                    @Value("${advspring.scan.packages:}") String[] scanPackages) {
         this.searchSession = searchSession;
         this.streamService = streamService;
 
         filters = new HashMap<>();
         sorts = new HashMap<>();
-        //in order to optimize performance we scan for all filters then all sorts then all controllers and match every thing
         logger.info("Filters and Sorts initialization process started");
-        this.scanAllPackagesForFilters();
-        this.scanAllPackagesForSort();
-        this.matchAllData();
-        this._filters = null;
-        this._sorts = null;
+        var registry = RegistryClasses.load(Thread.currentThread().getContextClassLoader(), scanPackages);
+        this.matchAllData(registry.filters(), registry.sorts(), registry.services());
         logger.info("Filters and Sorts initialization process completed");
     }
 
-    private void matchAllData() {
+    /**
+     * Groups the filters and sorts by the id of their service in one pass, filters and sorts of unknown services are
+     * ignored, when two filters or sorts have the same id the first one is kept
+     */
+    private void matchAllData(List<Class<?>> filterClasses, List<Class<?>> sortClasses,
+                              List<Class<?>> serviceClasses) {
         logger.info("Starting the matching process between sorts,filters and controllers");
-        try (var scan = new ClassGraph().enableClassInfo()
-                .enableAnnotationInfo()
-                .scan()) {
-            for (var classInfo : scan.getClassesWithAnnotation(ServiceInfo.class)) {
-                logger.debug("Found controller: " + classInfo.loadClass()
-                        .getCanonicalName());
-                var annotation = (ServiceInfo) classInfo.getAnnotationInfo(ServiceInfo.class.getCanonicalName())
-                        .loadClassAndInstantiate();
-                Set<SortInfoInternal> controllerSortList = new HashSet<SortInfoInternal>();
-                if (this.sorts.containsKey(annotation.id()))
-                    controllerSortList = this.sorts.get(annotation.id());
-                else this.sorts.put(annotation.id(), controllerSortList);
-                var cSortList = controllerSortList;
-                this._sorts.stream()
-                        .filter(item -> item.getControllerId()
-                                .equals(annotation.id())
-                                && cSortList.stream()
-                                .noneMatch(value -> value.getId()
-                                        .equals(item.getId())))
-                        .forEach(cSortList::add);
-                Set<FilterInfoInternal> controllerFilterList = new HashSet<FilterInfoInternal>();
-                if (this.filters.containsKey(annotation.id()))
-                    controllerFilterList = this.filters.get(annotation.id());
-                else this.filters.put(annotation.id(), controllerFilterList);
-                var cFilterList = controllerFilterList;
-                this._filters.stream()
-                        .filter(item -> item.getServiceId()
-                                .equals(annotation.id())
-                                && cFilterList.stream()
-                                .noneMatch(value -> value.getId()
-                                        .equals(item.getId())))
-                        .forEach(cFilterList::add);
-            }
+        var serviceIds = new HashSet<String>();
+        for (var serviceClass : serviceClasses) {
+            var annotation = serviceClass.getAnnotation(ServiceInfo.class);
+            if (annotation == null)
+                continue;
+            logger.debug("Found controller: " + serviceClass.getCanonicalName());
+            serviceIds.add(annotation.id());
         }
-        logger.info("Matching process completed");
-    }
-
-    private void scanAllPackagesForSort() {
-        logger.info("Scanning for sorts");
-        //we  scan for the all the sorts
-        this._sorts = new ArrayList<SortInfoInternal>();
-        try (var scan = new ClassGraph().enableClassInfo()
-                .enableAnnotationInfo()
-                .scan()) {
-            for (var classInfo : scan.getClassesWithAnnotation(SortInfo.class)) {
-                var data = (SortInfo) classInfo.getAnnotationInfo(SortInfo.class.getCanonicalName())
-                        .loadClassAndInstantiate();
-                logger.debug("Found sort: " + classInfo.loadClass()
-                        .getCanonicalName());
-                this._sorts.add(new SortInfoInternal()
-                        .setId((data.fieldName() + data.sortingDirection()
-                                .getValue()).toLowerCase())
-                        .setControllerId(data.serviceId())
-                        .setSortClass((Class<? extends Sort>) classInfo.loadClass()));
-
-            }
+        for (var filterClass : filterClasses) {
+            var data = filterClass.getAnnotation(FilterInfo.class);
+            if (data == null || !serviceIds.contains(data.serviceId()))
+                continue;
+            logger.debug("Found filter: " + filterClass.getCanonicalName());
+            var id = (data.fieldName() + data.operation()
+                    .getValue()).toLowerCase();
+            filters.computeIfAbsent(data.serviceId(), key -> new LinkedHashMap<>())
+                    .putIfAbsent(id, new FilterInfoInternal()
+                            .setId(id)
+                            .setServiceId(data.serviceId())
+                            .setFilterClass((Class<? extends Filter>) filterClass));
         }
-        logger.info("Sort scanning completed");
-
-    }
-
-    private void scanAllPackagesForFilters() {
-        //we  scan for the all the filters
-        logger.info("Scanning for filters");
-        this._filters = new ArrayList<FilterInfoInternal>();
-        try (var scan = new ClassGraph().enableClassInfo()
-                .enableAnnotationInfo()
-                .scan()) {
-            for (var classInfo : scan.getClassesWithAnnotation(FilterInfo.class)) {
-                var data = (FilterInfo) classInfo.getAnnotationInfo(FilterInfo.class.getCanonicalName())
-                        .loadClassAndInstantiate();
-                logger.debug("Found filter: " + classInfo.loadClass()
-                        .getCanonicalName());
-                this._filters.add(new FilterInfoInternal()
-                        .setId((data.fieldName() + data.operation()
-                                .getValue()).toLowerCase())
-                        .setServiceId(data.serviceId())
-                        .setFilterClass((Class<? extends Filter>) classInfo.loadClass()));
-            }
+        for (var sortClass : sortClasses) {
+            var data = sortClass.getAnnotation(SortInfo.class);
+            if (data == null || !serviceIds.contains(data.serviceId()))
+                continue;
+            logger.debug("Found sort: " + sortClass.getCanonicalName());
+            var id = (data.fieldName() + data.sortingDirection()
+                    .getValue()).toLowerCase();
+            sorts.computeIfAbsent(data.serviceId(), key -> new LinkedHashMap<>())
+                    .putIfAbsent(id, new SortInfoInternal()
+                            .setId(id)
+                            .setControllerId(data.serviceId())
+                            .setSortClass((Class<? extends Sort>) sortClass));
         }
-        logger.info("Filter scanning completed");
+        logger.info("Matching process completed");
     }
 
     /**
@@ -143,7 +100,7 @@ public class FilterAndSortInfoService {
         var result = new HashMap<String, Sort>();
         var sorts = this.sorts.get(controllerId);
         if (sorts != null)
-            sorts.forEach(item -> {
+            sorts.values().forEach(item -> {
                 try {
                     result.put(item.getId(), item.getSortClass()
                             .getDeclaredConstructor()
@@ -167,7 +124,7 @@ public class FilterAndSortInfoService {
         var result = new HashMap<String, Filter>();
         var filters = this.filters.get(controllerId);
         if (filters != null)
-            filters.forEach(item -> {
+            filters.values().forEach(item -> {
                 try {
                     result.put(item.getId(), item.getFilterClass()
                             .getDeclaredConstructor(SearchSession.class, JinqStreamService.class)
@@ -2,11 +2,20 @@ package io.ossnass.advSpring;
 
 import jakarta.persistence.EntityManager;
 import org.jinq.jpa.JPAJinqStream;
+import org.jinq.jpa.JPAQueryLogger;
 import org.jinq.jpa.JinqJPAStreamProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 /**
  * This class is used to create a JINQ jpa stream
+ * <p>
+ * Jinq translates the lambdas of the filters and sorts to JPQL once and binds the captured values as parameters, so
+ * the requests of the same shape (filter names, operations and sort) run the same JPQL whatever their values are. The
+ * generated JPQL is tracked in an {@link LruCache}, a hit is a query reusing an already generated JPQL and a miss is a
+ * new shape, reported by {@link JinqStreamService#statistics()}
  */
 @Service
 public class JinqStreamService {
@@ -15,9 +24,17 @@ public class JinqStreamService {
 
     private final EntityManager em;
 
-    public JinqStreamService(EntityManager em) {
+    /**
+     * The JPQL generated by Jinq, kept only to count the queries that reuse it
+     */
+    private final LruCache<String, Boolean> queries;
+
+    public JinqStreamService(EntityManager em,
+                             @Value("${advspring.queries.tracked:1024}") int trackedQueries) {
         this.em = em;
+        this.queries = new LruCache<>(trackedQueries);
         provider = new JinqJPAStreamProvider(em.getEntityManagerFactory());
+        provider.setHint("queryLogger", (JPAQueryLogger) this::track);
     }
 
     /**
@@ -30,4 +47,19 @@ public class JinqStreamService {
     public <T> JPAJinqStream<T> createCustomStream(Class<T> entityClass) {
         return provider.streamAll(em, entityClass);
     }
+
+    /**
+     * @return the hits, misses and size of the generated JPQL, a hit is a query whose JPQL was already generated for
+     * another request of the same shape
+     */
+    public Map<String, Long> statistics() {
+        return Map.of("hits", queries.getHits(),
+                "misses", queries.getMisses(),
+                "size", (long) queries.size());
+    }
+
+    private void track(String query, Map<Integer, Object> positionParameters, Map<String, Object> namedParameters) {
+        if (queries.get(query) == null)
+            queries.put(query, Boolean.TRUE);
+    }
 }
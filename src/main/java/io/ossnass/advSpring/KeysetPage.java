@@ -0,0 +1,14 @@
+package io.ossnass.advSpring;
+
+import java.util.List;
+
+/**
+ * A page fetched using keyset (seek) pagination by
+ * {@link ReadOnlyService#after(String[], String[], String[], Long, String, String)}
+ *
+ * @param items the entities of the page
+ * @param next  the opaque cursor to pass to fetch the next page, null if this is the last page
+ * @param <Entity> the entity type
+ */
+public record KeysetPage<Entity>(List<Entity> items, String next) {
+}
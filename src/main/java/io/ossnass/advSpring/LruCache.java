@@ -0,0 +1,202 @@
+package io.ossnass.advSpring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread safe, size bounded, least recently used cache that keeps track of its hits and misses, entries can
+ * optionally expire after a fixed time and the cache can optionally be bounded by the total weight of its entries
+ * <p>
+ * Used by {@link ReadOnlyService} to cache query results and entities
+ * <p>
+ * Guarded by a {@link ReentrantLock} rather than a monitor, so a virtual thread waiting for the cache doesn't pin its
+ * carrier thread
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, Node<V>> map;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private long weight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new cache
+     *
+     * @param maxSize the maximum number of entries, the least recently used entry is evicted when exceeded
+     */
+    public LruCache(int maxSize) {
+        this(maxSize, 0);
+    }
+
+    /**
+     * Creates a new cache with expiring entries
+     *
+     * @param maxSize  the maximum number of entries, the least recently used entry is evicted when exceeded
+     * @param ttlNanos the time an entry stays valid after it is stored in nanoseconds, 0 or less to never expire
+     */
+    public LruCache(int maxSize, long ttlNanos) {
+        this(maxSize, ttlNanos, 0, null);
+    }
+
+    /**
+     * Creates a new cache with expiring entries bounded by their total weight
+     *
+     * @param maxSize   the maximum number of entries, the least recently used entry is evicted when exceeded
+     * @param ttlNanos  the time an entry stays valid after it is stored in nanoseconds, 0 or less to never expire
+     * @param maxWeight the maximum total weight of the entries, the least recently used entries are evicted when
+     *                  exceeded, 0 or less for no limit
+     * @param weigher   computes the weight of a value, ignored if there is no weight limit
+     */
+    public LruCache(int maxSize, long ttlNanos, long maxWeight, ToLongFunction<V> weigher) {
+        this.ttlNanos = ttlNanos;
+        this.maxWeight = weigher == null ? 0 : maxWeight;
+        this.weigher = weigher;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Node<V>> eldest) {
+                if (size() <= maxSize)
+                    return false;
+                weight -= eldest.getValue().weight();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the value of the key and records a hit, or null and records a miss
+     *
+     * @param key the key
+     * @return the value or null if not found
+     */
+    public V get(K key) {
+        V value = null;
+        lock.lock();
+        try {
+            var node = map.get(key);
+            if (node != null) {
+                if (ttlNanos > 0 && System.nanoTime() - node.storedAt() > ttlNanos)
+                    removeNode(key);
+                else value = node.value();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (value == null)
+            misses.increment();
+        else
+            hits.increment();
+        return value;
+    }
+
+    /**
+     * Stores a value
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            var valueWeight = maxWeight > 0 ? weigher.applyAsLong(value) : 0;
+            //a value heavier than the whole cache is not stored
+            if (maxWeight > 0 && valueWeight > maxWeight) {
+                removeNode(key);
+                return;
+            }
+            var previous = map.put(key, new Node<>(value, ttlNanos > 0 ? System.nanoTime() : 0, valueWeight));
+            weight += valueWeight - (previous != null ? previous.weight() : 0);
+            if (maxWeight > 0) {
+                var iterator = map.values().iterator();
+                while (weight > maxWeight && iterator.hasNext()) {
+                    weight -= iterator.next().weight();
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a value
+     *
+     * @param key the key
+     */
+    public void remove(K key) {
+        lock.lock();
+        try {
+            removeNode(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all the values
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries in the cache
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of lookups that found a value
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that didn't find a value
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the total weight of the entries, 0 if the cache is not bounded by weight
+     */
+    public long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeNode(K key) {
+        var node = map.remove(key);
+        if (node != null)
+            weight -= node.weight();
+    }
+
+    private record Node<V>(V value, long storedAt, long weight) {
+    }
+}
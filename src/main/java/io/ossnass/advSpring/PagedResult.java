@@ -0,0 +1,14 @@
+package io.ossnass.advSpring;
+
+import java.util.List;
+
+/**
+ * A page of items along with the total number of items matching the same filters, returned by
+ * {@link ReadOnlyService#page(String[], String[], String[], Long, Long, String)}
+ *
+ * @param items the items of the page
+ * @param total the number of items matching the filters regardless of the pagination
+ * @param <T>   the type of the items
+ */
+public record PagedResult<T>(List<T> items, Long total) {
+}
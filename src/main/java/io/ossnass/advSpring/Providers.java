@@ -8,8 +8,10 @@ import org.hibernate.search.mapper.orm.session.SearchSession;
 import org.jinq.jpa.JinqJPAStreamProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @Configuration
+@ImportRuntimeHints(AdvSpringRuntimeHints.class)
 public class Providers {
     @PersistenceContext
     private EntityManager em;
@@ -1,12 +1,32 @@
 package io.ossnass.advSpring;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.ossnass.advSpring.annotations.ControllerInfo;
+import jakarta.servlet.http.HttpServletResponse;
 import org.mapstruct.factory.Mappers;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This class is used to create a controller for a read only service
@@ -15,19 +35,41 @@ import org.springframework.web.bind.annotation.RequestParam;
  * <p>
  * Supports the following functions:
  * <ul>
- *     <li>{@link ReadOnlyController#all(String[], String[], String[], Long, Long, String)}: returns a list of entities</li>
- *     <li>{@link ReadOnlyController#getOnes(String)}: returns a list of entities based on the passed ids</li>
- *     <li>{@link ReadOnlyController#count(String[], String[], String[])}: returns the number of entities based on the passed filters</li>
+ *     <li>{@link ReadOnlyController#all(String[], String[], String[], Long, Long, String, String, boolean, String[], WebRequest)}: returns a list of entities</li>
+ *     <li>{@link ReadOnlyController#page(String[], String[], String[], Long, Long, String, WebRequest)}: returns a page of entities with the total count</li>
+ *     <li>{@link ReadOnlyController#stream(String[], String[], String[], String, HttpServletResponse)}: streams the entities as newline delimited JSON</li>
+ *     <li>{@link ReadOnlyController#search(String, String[], String[], String[], Long, Long, WebRequest)}: returns a page of entities matching a full text search, by relevance</li>
+ *     <li>{@link ReadOnlyController#autocomplete(String, String[], String[], String[], Integer, String[], WebRequest)}: returns the entities suggested for a prefix</li>
+ *     <li>{@link ReadOnlyController#facets(String[], String[], String[], String[], WebRequest)}: returns the number of entities per value of fields</li>
+ *     <li>{@link ReadOnlyController#getOnes(String, String[], WebRequest)}: returns a list of entities based on the passed ids</li>
+ *     <li>{@link ReadOnlyController#count(String[], String[], String[], boolean, WebRequest)}: returns the number of entities based on the passed filters</li>
  * </ul>
+ * When {@link ControllerInfo#etag()} is enabled all the functions except the stream answer with a weak ETag, and with
+ * 304 (Not Modified) without querying the database when the If-None-Match header matches
  *
  * @param <Entity>
  * @param <ID>
  * @param <Dto>
  */
 public class ReadOnlyController<Entity extends Deletable, ID, Dto> extends Loggable {
+  /**
+   * The header holding the cursor of the next page when using keyset pagination
+   */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  /**
+   * The header telling whether more entities exist after the page
+   */
+  public static final String HAS_MORE_HEADER = "X-Has-More";
   protected final DtoMapper<Entity, Dto> mapper;
   protected final ReadOnlyService<Entity, ID> service;
   protected final ControllerInfo controllerInfo;
+  @Autowired
+  protected ObjectMapper objectMapper;
+  /**
+   * The DTO properties read from the basic attribute of the entity with the same name and type, by their JSON names,
+   * resolved on first use
+   */
+  private volatile Map<String, String> basicFields;
 
   public ReadOnlyController(ReadOnlyService<Entity, ID> service) {
     this.service = service;
@@ -37,6 +79,112 @@ public class ReadOnlyController<Entity extends Deletable, ID, Dto> extends Logga
     this.mapper = (DtoMapper<Entity, Dto>) Mappers.getMapper(controllerInfo.mapper());
   }
 
+  /**
+   * Creates the weak ETag of the current state of the entity class of the service and of the classes of
+   * {@link ControllerInfo#etagDependsOn()}
+   * <p>
+   * The versions of {@link EntityChangeTracker} move once the writes are committed, so the ETag never announces
+   * uncommitted or rolled back data
+   *
+   * @return the ETag
+   */
+  protected String etag() {
+    var etag = new StringBuilder("W/\"").append(EntityChangeTracker.epoch())
+      .append('-').append(EntityChangeTracker.version(service.entityClass));
+    for (var dependency : controllerInfo.etagDependsOn())
+      etag.append('-').append(EntityChangeTracker.version(dependency));
+    return etag.append('"').toString();
+  }
+
+  /**
+   * Maps the entities to DTOs keeping only the requested properties, unknown properties are ignored
+   * <p>
+   * When all the requested properties are basic attributes of the entity, see
+   * {@link ReadOnlyController#readsBasicAttributes(String[])}, they are read from the entities without the mapper, so
+   * no association is loaded, otherwise the DTOs are mapped then trimmed
+   *
+   * @param entities the entities
+   * @param fields   the properties to keep, null to keep all of them
+   * @return the DTOs when no fields are requested, otherwise JSON objects with the requested properties
+   */
+  protected Object project(List<Entity> entities, String[] fields) {
+    if (fields == null)
+      return entities.stream().map(mapper::fromEntity).toList();
+    var retained = new LinkedHashSet<String>();
+    for (var field : fields)
+      retained.add(field.trim());
+    var result = new ArrayList<JsonNode>(entities.size());
+    var basic = basicFields();
+    if (basic.keySet().containsAll(retained)) {
+      for (var entity : entities) {
+        var accessor = PropertyAccessorFactory.forDirectFieldAccess(entity);
+        var node = objectMapper.createObjectNode();
+        for (var field : retained)
+          node.set(field, objectMapper.valueToTree(accessor.getPropertyValue(basic.get(field))));
+        result.add(node);
+      }
+      return result;
+    }
+    for (var entity : entities) {
+      JsonNode node = objectMapper.valueToTree(mapper.fromEntity(entity));
+      if (node instanceof ObjectNode objectNode)
+        objectNode.retain(retained);
+      result.add(node);
+    }
+    return result;
+  }
+
+  /**
+   * Tells whether the requested properties can be read from the basic attributes of the entities, in which case the
+   * entities are loaded as read-only, without the associations of the fetch plan and without using the caches
+   *
+   * @param fields the requested properties, null for all of them
+   * @return true if fields are requested and all of them are DTO properties with the same name and type as a basic
+   * attribute of the entity
+   */
+  protected boolean readsBasicAttributes(String[] fields) {
+    if (fields == null)
+      return false;
+    var basic = basicFields();
+    for (var field : fields)
+      if (!basic.containsKey(field.trim()))
+        return false;
+    return true;
+  }
+
+  private Map<String, String> basicFields() {
+    var result = basicFields;
+    if (result == null) {
+      result = new HashMap<>();
+      var dtoClass = ResolvableType.forClass(ReadOnlyController.class, getClass()).resolveGeneric(2);
+      if (dtoClass != null) {
+        var attributes = service.basicAttributes();
+        var properties = objectMapper.getSerializationConfig()
+          .introspect(objectMapper.constructType(dtoClass)).findProperties();
+        for (var property : properties) {
+          var type = attributes.get(property.getInternalName());
+          if (property.couldSerialize() && type != null && ClassUtils.resolvePrimitiveIfNecessary(type) ==
+            ClassUtils.resolvePrimitiveIfNecessary(property.getRawPrimaryType()))
+            result.put(property.getName(), property.getInternalName());
+        }
+      }
+      result = Map.copyOf(result);
+      basicFields = result;
+    }
+    return result;
+  }
+
+  /**
+   * Checks the If-None-Match header of the request against {@link ReadOnlyController#etag()}, when it matches the
+   * response is set to 304 (Not Modified), the ETag header is added to the response in both cases
+   *
+   * @param request the current request
+   * @return true if the client has the current version, and the endpoint must return null
+   */
+  protected boolean notModified(WebRequest request) {
+    return controllerInfo.etag() && request != null && request.checkNotModified(etag());
+  }
+
   /**
    * Returns a list of entities based on the passed filters
    *
@@ -46,7 +194,16 @@ public class ReadOnlyController<Entity extends Deletable, ID, Dto> extends Logga
    * @param start           the start value of the pagination (when to start fetching)
    * @param count           the count value of the pagination (the number of elements to fetch)
    * @param sort            the name of the sorting method
-   * @return a list of entities
+   * @param after           the cursor of keyset pagination, when passed (even empty for the first page) the page is
+   *                        fetched using {@link ReadOnlyService#after(String[], String[], String[], Long, String, String)}
+   *                        and the cursor of the next page is returned in the {@value #NEXT_CURSOR_HEADER} header,
+   *                        cannot be combined with start
+   * @param hasMore         true to return whether more entities exist after the page in the
+   *                        {@value #HAS_MORE_HEADER} header, requires start and count
+   * @param fields          the DTO properties to return, all if not passed, see
+   *                        {@link ReadOnlyController#project(List, String[])}
+   * @param request         the current request, used for conditional GET
+   * @return a list of entities, or null when not modified
    */
   @GetMapping
   public ResponseEntity all(@RequestParam(value = "filter", required = false) String[] filter,
@@ -54,22 +211,194 @@ public class ReadOnlyController<Entity extends Deletable, ID, Dto> extends Logga
                             @RequestParam(value = "filterValue", required = false) String[] filterValue,
                             @RequestParam(value = "start", required = false) Long start,
                             @RequestParam(value = "count", required = false) Long count,
-                            @RequestParam(value = "sort", required = false) String sort
+                            @RequestParam(value = "sort", required = false) String sort,
+                            @RequestParam(value = "after", required = false) String after,
+                            @RequestParam(value = "hasMore", defaultValue = "false") boolean hasMore,
+                            @RequestParam(value = "fields", required = false) String[] fields,
+                            WebRequest request
                            ) {
+    if (notModified(request))
+      return null;
+    if (after != null) {
+      if (start != null)
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad pagination");
+      var page = service.after(filter, filterOperation, filterValue, count, sort, after,
+        readsBasicAttributes(fields));
+      var response = ResponseEntity.ok();
+      if (page.next() != null)
+        response.header(NEXT_CURSOR_HEADER, page.next());
+      return response.body(project(page.items(), fields));
+    }
+    if (hasMore) {
+      var slice = service.slice(filter, filterOperation, filterValue, start, count, sort,
+        readsBasicAttributes(fields));
+      return ResponseEntity.ok()
+        .header(HAS_MORE_HEADER, String.valueOf(slice.hasMore()))
+        .body(project(slice.items(), fields));
+    }
+    var entities = service.all(filter, filterOperation, filterValue, start, count, sort,
+      readsBasicAttributes(fields));
+    return ResponseEntity.ok(project(entities, fields));
+  }
+
+  /**
+   * Returns a page of entities along with the total number of entities matching the passed filters in a single call,
+   * the filters are processed once for both
+   *
+   * @param filter          the filter names
+   * @param filterOperation the filter operations
+   * @param filterValue     the filter values
+   * @param start           the start value of the pagination (when to start fetching)
+   * @param count           the count value of the pagination (the number of elements to fetch)
+   * @param sort            the name of the sorting method
+   * @param request         the current request, used for conditional GET
+   * @return the page of entities and the total as {@link PagedResult}, or null when not modified
+   */
+  @GetMapping("/page")
+  public ResponseEntity page(@RequestParam(value = "filter", required = false) String[] filter,
+                             @RequestParam(value = "filterOperation", required = false) String[] filterOperation,
+                             @RequestParam(value = "filterValue", required = false) String[] filterValue,
+                             @RequestParam(value = "start", required = false) Long start,
+                             @RequestParam(value = "count", required = false) Long count,
+                             @RequestParam(value = "sort", required = false) String sort,
+                             WebRequest request) {
+    if (notModified(request))
+      return null;
+    var page = service.page(filter, filterOperation, filterValue, start, count, sort);
+    return ResponseEntity.ok(
+      new PagedResult<>(page.items().stream().map(mapper::fromEntity).toList(), page.total()));
+  }
+
+  /**
+   * Returns a page of entities matching a full text search on the
+   * {@link io.ossnass.advSpring.annotations.ServiceInfo#searchFields()}, ordered by relevance, along with the total
+   * number of hits
+   *
+   * @param q               the text to search, see {@link ReadOnlyService#search(String, Long, Long)}
+   * @param filter          the filter names, only {@link io.ossnass.advSpring.operators.SearchFilter}s
+   * @param filterOperation the filter operations
+   * @param filterValue     the filter values
+   * @param start           the index of the first hit
+   * @param count           the number of hits
+   * @param request         the current request, used for conditional GET
+   * @return the page of entities and the total as {@link PagedResult}, or null when not modified
+   */
+  @GetMapping("/search")
+  public ResponseEntity search(@RequestParam(value = "q", required = false) String q,
+                               @RequestParam(value = "filter", required = false) String[] filter,
+                               @RequestParam(value = "filterOperation", required = false) String[] filterOperation,
+                               @RequestParam(value = "filterValue", required = false) String[] filterValue,
+                               @RequestParam(value = "start", required = false) Long start,
+                               @RequestParam(value = "count", required = false) Long count,
+                               WebRequest request) {
+    if (notModified(request))
+      return null;
+    var page = service.search(q, filter, filterOperation, filterValue, start, count);
     return ResponseEntity.ok(
-      service.all(filter, filterOperation, filterValue, start, count, sort).stream().map(mapper::fromEntity)
-        .toList());
+      new PagedResult<>(page.items().stream().map(mapper::fromEntity).toList(), page.total()));
+  }
+
+  /**
+   * Returns the entities suggested for the text typed by the user, using the
+   * {@link io.ossnass.advSpring.annotations.ServiceInfo#autocompleteFields()}
+   *
+   * @param q               the text typed by the user
+   * @param filter          the filter names, only {@link io.ossnass.advSpring.operators.SearchFilter}s
+   * @param filterOperation the filter operations
+   * @param filterValue     the filter values
+   * @param count           the number of suggestions
+   * @param fields          the DTO properties to return, all if not passed, see
+   *                        {@link ReadOnlyController#project(List, String[])}
+   * @param request         the current request, used for conditional GET
+   * @return a list of entities, or null when not modified
+   */
+  @GetMapping("/autocomplete")
+  public ResponseEntity autocomplete(@RequestParam(value = "q", required = false) String q,
+                                     @RequestParam(value = "filter", required = false) String[] filter,
+                                     @RequestParam(value = "filterOperation", required = false) String[] filterOperation,
+                                     @RequestParam(value = "filterValue", required = false) String[] filterValue,
+                                     @RequestParam(value = "count", required = false) Integer count,
+                                     @RequestParam(value = "fields", required = false) String[] fields,
+                                     WebRequest request) {
+    if (notModified(request))
+      return null;
+    return ResponseEntity.ok(project(service.autocomplete(q, filter, filterOperation, filterValue, count), fields));
+  }
+
+  /**
+   * Returns the number of entities matching the filters per value of the requested facets, counted by the index, see
+   * {@link ReadOnlyService#facets(String[], String[], String[], String[])}
+   *
+   * @param field           the facets to count, all of the service if not passed
+   * @param filter          the filter names, only {@link io.ossnass.advSpring.operators.SearchFilter}s
+   * @param filterOperation the filter operations
+   * @param filterValue     the filter values
+   * @param request         the current request, used for conditional GET
+   * @return the counts by value by facet, or null when not modified
+   */
+  @GetMapping("/facets")
+  public ResponseEntity facets(@RequestParam(value = "field", required = false) String[] field,
+                               @RequestParam(value = "filter", required = false) String[] filter,
+                               @RequestParam(value = "filterOperation", required = false) String[] filterOperation,
+                               @RequestParam(value = "filterValue", required = false) String[] filterValue,
+                               WebRequest request) {
+    if (notModified(request))
+      return null;
+    return ResponseEntity.ok(service.facets(field, filter, filterOperation, filterValue));
+  }
+
+  /**
+   * Streams the entities based on the passed filters as newline delimited JSON, one DTO per line
+   * <p>
+   * Unlike {@link ReadOnlyController#all(String[], String[], String[], Long, Long, String, String, boolean, String[], WebRequest)} the result is never
+   * held in memory, every entity is mapped and written to the response as soon as it is fetched
+   *
+   * @param filter          the filter names
+   * @param filterOperation the filter operations
+   * @param filterValue     the filter values
+   * @param sort            the name of the sorting method, it must support keyset pagination
+   * @param response        the response to write to
+   * @throws IOException if writing to the response fails
+   */
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public void stream(@RequestParam(value = "filter", required = false) String[] filter,
+                     @RequestParam(value = "filterOperation", required = false) String[] filterOperation,
+                     @RequestParam(value = "filterValue", required = false) String[] filterValue,
+                     @RequestParam(value = "sort", required = false) String sort,
+                     HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    var out = response.getOutputStream();
+    try {
+      service.stream(filter, filterOperation, filterValue, sort, entity -> {
+        try {
+          out.write(objectMapper.writeValueAsBytes(mapper.fromEntity(entity)));
+          out.write('\n');
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    out.flush();
   }
 
   /**
    * Returns a list of entities based on the passed ids
    *
    * @param idString the ids inform of string (more than one identity and all parts of each identity)
-   * @return a list of entities
+   * @param fields   the DTO properties to return, all if not passed, see
+   *                 {@link ReadOnlyController#project(List, String[])}
+   * @param request  the current request, used for conditional GET
+   * @return a list of entities, or null when not modified
    */
   @GetMapping("/ones/{idString}")
-  public ResponseEntity getOnes(@PathVariable("idString") String idString) {
-    return ResponseEntity.ok(service.getOnes(idString).stream().map(mapper::fromEntity).toList());
+  public ResponseEntity getOnes(@PathVariable("idString") String idString,
+                                @RequestParam(value = "fields", required = false) String[] fields,
+                                WebRequest request) {
+    if (notModified(request))
+      return null;
+    return ResponseEntity.ok(project(service.getOnes(idString, readsBasicAttributes(fields)), fields));
   }
 
   /**
@@ -78,12 +407,18 @@ public class ReadOnlyController<Entity extends Deletable, ID, Dto> extends Logga
    * @param filter          the filter names
    * @param filterOperation the filter operations
    * @param filterValue     the filter values
-   * @return the number of entities
+   * @param estimate        true to accept an estimated count when no filters are applied
+   * @param request         the current request, used for conditional GET
+   * @return the number of entities, or null when not modified
    */
   @GetMapping("/count")
   public ResponseEntity count(@RequestParam(value = "filter", required = false) String[] filter,
                               @RequestParam(value = "filterOperation", required = false) String[] filterOperation,
-                              @RequestParam(value = "filterValue", required = false) String[] filterValue) {
-    return ResponseEntity.ok(service.count(filter, filterOperation, filterValue));
+                              @RequestParam(value = "filterValue", required = false) String[] filterValue,
+                              @RequestParam(value = "estimate", defaultValue = "false") boolean estimate,
+                              WebRequest request) {
+    if (notModified(request))
+      return null;
+    return ResponseEntity.ok(service.count(filter, filterOperation, filterValue, estimate));
   }
 }
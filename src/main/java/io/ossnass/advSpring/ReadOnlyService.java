@@ -1,25 +1,65 @@
 package io.ossnass.advSpring;
 
+import io.ossnass.advSpring.annotations.CacheInfo;
+import io.ossnass.advSpring.annotations.FilterInfo;
 import io.ossnass.advSpring.annotations.ServiceInfo;
 import io.ossnass.advSpring.annotations.hooks.FilterContainer;
 import io.ossnass.advSpring.annotations.hooks.PostFetch;
 import io.ossnass.advSpring.annotations.hooks.PreFetch;
 import io.ossnass.advSpring.operators.Filter;
+import io.ossnass.advSpring.operators.SearchFilter;
 import io.ossnass.advSpring.operators.Sort;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.Metamodel;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.search.engine.backend.metamodel.IndexFieldDescriptor;
+import org.hibernate.search.engine.search.aggregation.AggregationKey;
+import org.hibernate.search.engine.search.aggregation.dsl.AggregationFinalStep;
+import org.hibernate.search.engine.search.aggregation.dsl.SearchAggregationFactory;
+import org.hibernate.search.engine.search.common.BooleanOperator;
+import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.engine.search.predicate.dsl.SimpleQueryFlag;
+import org.hibernate.search.mapper.orm.Search;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.hibernate.search.util.common.data.Range;
 import org.jinq.jpa.JPAJinqStream;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.ConfigurableObjectInputStream;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * This class is used to create a server to read entities from the system
@@ -29,6 +69,13 @@ import java.util.*;
  *     <li>{@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}: returns a list of entities</li>
  *     <li>{@link ReadOnlyService#getOnes(String)}: returns a list of entities based on the passed ids</li>
  *     <li>{@link ReadOnlyService#count(String[], String[], String[])}: returns the number of entities based on the passed filters</li>
+ *     <li>{@link ReadOnlyService#slice(String[], String[], String[], Long, Long, String)}: returns a page of entities and whether more exist</li>
+ *     <li>{@link ReadOnlyService#page(String[], String[], String[], Long, Long, String)}: returns a page of entities with the total count</li>
+ *     <li>{@link ReadOnlyService#stream(String[], String[], String[], String, Consumer)}: streams the entities without loading them all in memory</li>
+ *     <li>{@link ReadOnlyService#after(String[], String[], String[], Long, String, String)}: returns a page of entities using keyset pagination</li>
+ *     <li>{@link ReadOnlyService#search(String, Long, Long)}: returns a page of entities matching a full text search</li>
+ *     <li>{@link ReadOnlyService#autocomplete(String, Integer)}: returns the entities suggested for a prefix</li>
+ *     <li>{@link ReadOnlyService#facets(String[], String[], String[], String[])}: returns the number of entities per value of fields</li>
  * </ul>
  * <p>
  * Supports the following hooks:
@@ -41,12 +88,40 @@ import java.util.*;
  * @param <Id>     the id of the entity
  */
 public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Loggable {
+    /**
+     * The number of rows fetched per query by {@link ReadOnlyService#stream(String[], String[], String[], String, Consumer)}
+     */
+    public static final int STREAM_PAGE_SIZE = 500;
+    /**
+     * The number of hits returned by {@link ReadOnlyService#search(String, Long, Long)} when no count is passed
+     */
+    public static final int SEARCH_PAGE_SIZE = 20;
+    /**
+     * The number of suggestions returned by {@link ReadOnlyService#autocomplete(String, Integer)} when no count is
+     * passed
+     */
+    public static final int AUTOCOMPLETE_SIZE = 10;
+    /**
+     * The time budget of the index query of {@link ReadOnlyService#autocomplete(String, Integer)}, the hits found
+     * when it runs out are returned and not cached
+     */
+    public static final long AUTOCOMPLETE_TIMEOUT_MILLIS = 10;
+    /**
+     * The maximum number of values returned per field by
+     * {@link ReadOnlyService#facets(String[], String[], String[], String[])}, the most frequent first
+     */
+    public static final int FACET_TERMS_SIZE = 100;
     protected final EntityManager em;
     protected final SearchSession searchSession;
     protected final JinqStreamService streamService;
     protected final JpaRepository<Entity, Id> repository;
     protected final Class<Entity> entityClass;
     protected final Map<Class<? extends Annotation>, Map<Integer, Method>> hooks;
+    /**
+     * The hooks of every hook annotation bound by {@link CompiledHook} and sorted by their order, built once by
+     * {@link ReadOnlyService#loadHooks(Set)}
+     */
+    protected final Map<Class<? extends Annotation>, CompiledHook[]> hookChains;
     /**
      * Stores all the filters applicable to this controller
      */
@@ -55,6 +130,76 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
      * Stores all the sorts applicable to this controller
      */
     protected Map<String, Sort<Entity>> sorts;
+    /**
+     * Resolves a filter name then its operation to the filter, both are case-insensitive so looking up a filter
+     * doesn't allocate, built once when the service is created
+     */
+    protected final NavigableMap<String, NavigableMap<String, Filter<Entity>>> filterTable;
+    /**
+     * The filters that must be present in every request, after executing the {@link PreFetch} hooks
+     */
+    protected final List<Filter<Entity>> mandatoryFilters;
+    /**
+     * Caches the results of {@link ReadOnlyService#count(String[], String[], String[])}, null when disabled
+     */
+    protected final LruCache<List<String>, CachedCount> countCache;
+    /**
+     * The maximum number of ids per query in {@link ReadOnlyService#getOnes(String)}
+     */
+    protected final int idChunkSize;
+    /**
+     * Caches the serialized state of the entities by id, shared by the services of the same {@link CacheInfo#region()},
+     * null when disabled, every hit is deserialized into a new detached copy
+     */
+    protected final LruCache<String, Object> entityCache;
+    /**
+     * Caches the ids of the results of {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)},
+     * null when disabled
+     */
+    protected final LruCache<ResultKey, CachedResult<Id>> resultCache;
+    /**
+     * The result cache misses being fetched, so identical concurrent requests wait for the same query
+     */
+    private final ConcurrentHashMap<ResultKey, CompletableFuture<List<Id>>> pendingResults =
+            new ConcurrentHashMap<>();
+    /**
+     * The association paths of {@link ServiceInfo#fetch()}
+     */
+    protected final String[] fetchPaths;
+    /**
+     * The index fields of {@link ServiceInfo#searchFields()}
+     */
+    protected final String[] searchFields;
+    /**
+     * The index fields of {@link ServiceInfo#autocompleteFields()}
+     */
+    protected final String[] autocompleteFields;
+    /**
+     * Caches the ids of the results of {@link ReadOnlyService#autocomplete(String, Integer)} by prefix, count and
+     * filters, null when disabled
+     */
+    protected final LruCache<AutocompleteKey, CachedResult<Id>> autocompleteCache;
+    /**
+     * The facets of {@link ServiceInfo#facetFields()} and {@link ServiceInfo#facetRanges()} by their field, resolved
+     * from the index metamodel on first use
+     */
+    private volatile Map<String, Facet> facets;
+    /**
+     * The java types of the basic attributes of the entity by their names, resolved from the JPA metamodel on first use
+     */
+    private volatile Map<String, Class<?>> basicAttributes;
+    /**
+     * The join fetch queries of {@link ReadOnlyService#fetchPaths}, built on first use
+     */
+    private volatile List<String> fetchQueries;
+    /**
+     * The fields of a composite id, resolved from the metamodel on first use
+     */
+    private volatile CompositeId compositeId;
+    /**
+     * The queries of composite ids by their number of ids, see {@link ReadOnlyService#queryChunk(List)}
+     */
+    private final Map<Integer, String> compositeQueries = new ConcurrentHashMap<>();
 
 
     public ReadOnlyService(FilterAndSortInfoService filterService, EntityManager em, SearchSession searchSession,
@@ -64,6 +209,7 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
         this.streamService = streamService;
         this.repository = repository;
         this.hooks = new HashMap<>();
+        this.hookChains = new HashMap<>();
         var serviceInfo = this.getClass()
                 .getAnnotation(ServiceInfo.class);
         Assert.notNull(serviceInfo,
@@ -73,7 +219,30 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
                 "A service must have id");
         Assert.notNull(serviceInfo.entityClass(), "A service must have an entity class info");
         this.entityClass = (Class<Entity>) serviceInfo.entityClass();
+        this.countCache = serviceInfo.countCacheSize() > 0 ? new LruCache<>(serviceInfo.countCacheSize()) : null;
+        Assert.isTrue(serviceInfo.idChunkSize() > 0, "idChunkSize must be positive");
+        this.idChunkSize = serviceInfo.idChunkSize();
+        this.entityCache = CacheRegions.region(serviceInfo.cache().region().isEmpty() ?
+                serviceInfo.id() : serviceInfo.cache().region(), serviceInfo.cache());
+        this.fetchPaths = serviceInfo.fetch();
+        this.searchFields = serviceInfo.searchFields();
+        this.autocompleteFields = serviceInfo.autocompleteFields();
+        var autocompleteCacheInfo = serviceInfo.autocompleteCache();
+        this.autocompleteCache = autocompleteFields.length > 0 && autocompleteCacheInfo.size() > 0 ?
+                new LruCache<>(autocompleteCacheInfo.size(),
+                        TimeUnit.SECONDS.toNanos(autocompleteCacheInfo.ttlSeconds())) : null;
+        var resultCacheInfo = serviceInfo.resultCache();
+        this.resultCache = resultCacheInfo.size() > 0 ? new LruCache<>(resultCacheInfo.size(),
+                TimeUnit.SECONDS.toNanos(resultCacheInfo.ttlSeconds()), resultCacheInfo.maxWeight(),
+                cached -> cached.items().size() + 1L) : null;
         executePreFetchHooks(filterService, serviceInfo);
+        this.filterTable = buildFilterTable();
+        this.mandatoryFilters = filters.values().stream().filter(Filter::isMandatory).toList();
+        //the search, the autocomplete and the facets require the mandatory filters and apply them in the index
+        var usesIndex = searchFields.length > 0 || autocompleteFields.length > 0
+                || serviceInfo.facetFields().length > 0 || serviceInfo.facetRanges().length > 0;
+        Assert.isTrue(!usesIndex || mandatoryFilters.stream().allMatch(SearchFilter.class::isInstance),
+                "The mandatory filters of a service using the index must be search filters");
 
         hooks.put(PreFetch.class, new HashMap<>());
         hooks.put(PostFetch.class, new HashMap<>());
@@ -94,11 +263,47 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
     }
 
 
+    /**
+     * Builds {@link ReadOnlyService#filterTable} from the {@link FilterInfo} of every filter of this service
+     *
+     * @return the immutable resolution table
+     */
+    private NavigableMap<String, NavigableMap<String, Filter<Entity>>> buildFilterTable() {
+        var table = new TreeMap<String, NavigableMap<String, Filter<Entity>>>(String.CASE_INSENSITIVE_ORDER);
+        filters.values().forEach(filter -> {
+            var info = filter.getClass().getAnnotation(FilterInfo.class);
+            if (info == null) {
+                logger.error("Filter {} of service {} is not annotated with FilterInfo, ignoring it",
+                        filter.getClass().getSimpleName(), this.getClass().getSimpleName());
+                return;
+            }
+            table.computeIfAbsent(info.fieldName(), key -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+                    .put(info.operation().getValue(), filter);
+        });
+        table.replaceAll((key, value) -> Collections.unmodifiableNavigableMap(value));
+        return Collections.unmodifiableNavigableMap(table);
+    }
+
+    /**
+     * Looks for a filter in {@link ReadOnlyService#filterTable}
+     *
+     * @param filter          the filter name
+     * @param filterOperation the filter operation
+     * @return the filter or null if not found
+     */
+    protected final Filter<Entity> resolveFilter(String filter, String filterOperation) {
+        if (filter == null || filterOperation == null)
+            return null;
+        var operations = filterTable.get(filter);
+        return operations == null ? null : operations.get(filterOperation);
+    }
+
     /**
      * The purpose of this function is to validate the filters passed to controller to exists with the supported
      * operations.
      * <p>
-     * It will search inside {@link CRUDService#filters} for the filters.
+     * It will search inside {@link ReadOnlyService#filterTable} for the filters, and makes sure all the
+     * {@link ReadOnlyService#mandatoryFilters} are present.
      * <p>
      * Also, it will validate the lengths of the 3 input arrays and makes sure they are of the same size
      *
@@ -110,35 +315,7 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
     protected boolean validateFilters(String[] filters,
                                       String[] filterOperations,
                                       String[] filterValues) {
-        //validating filter sizes
-        if (filters.length != filterOperations.length || filters.length != filterValues.length)
-            return false;
-        //arrays of filter indexes not found in the first array
-        var indexes = new ArrayList<String>();
-        //we look for  mandatory filters
-        var tmpMap = new HashMap<String, Filter<Entity>>();
-        this.filters.entrySet()
-                .stream()
-                .filter(item -> item.getValue()
-                        .isMandatory())
-                .forEach(item -> tmpMap.put(item.getKey(),
-                        item.getValue()));
-
-        for (int i = 0; i < filters.length; i++) {
-            //Now we check if the filter is in mandatory filters
-            //if it is in mandatory filters and not exists in the filters we pass, return false
-            //else we check for the filters in the standard filter list
-            //this way filters with dynamic mandatory value can have the dynamic neediness
-            if (tmpMap.containsKey((filters[i] + filterOperations[i]).toLowerCase()))
-                //the filter is not found
-                continue;
-            if (this.filters.containsKey((filters[i] + filterOperations[i]).toLowerCase()))
-                continue;
-            indexes.add((filters[i] + filterOperations[i]).toLowerCase());
-        }
-        //so basically we are populating the indexes list with all the not found filters, and the result is valid filter
-        // if the final size of it is 0
-        return indexes.isEmpty();
+        return resolveFilters(filters, filterOperations, filterValues) != null;
     }
 
 
@@ -156,11 +333,10 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
                                                  String[] filterOperations,
                                                  String[] filterValues) {
         for (int i = 0; i < filters.length; i++) {
-            var filter = (filters[i] + filterOperations[i]).toLowerCase();
-            if (this.filters.containsKey(filter))
-                stream = this.filters.get(filter)
-                        .addFilter(stream,
-                                filterValues[i]);
+            var filter = resolveFilter(filters[i], filterOperations[i]);
+            if (filter != null)
+                stream = filter.addFilter(stream,
+                        filterValues[i]);
         }
         return stream;
     }
@@ -193,18 +369,23 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
                                                   String sorting,
                                                   Long start,
                                                   Long count) {
-        // handles prefetch hook
-        if (!hooks.get(PreFetch.class).isEmpty()) {
-            var container = executePreFetchHooks(filters, filterOperations, filterValues);
-            filters = container.getFilters().toArray(new String[0]);
-            filterOperations = container.getFilterOperations().toArray(new String[0]);
-            filterValues = container.getFilterValues().toArray(new String[0]);
-        }
-        //if the filters are valid we continue
-        //the filters array must be larger than 0 and all the filters must pass
-        stream = processFilters(stream, filters, filterOperations, filterValues);
+        return combineStream(stream, preFetch(filters, filterOperations, filterValues), sorting, start, count);
+    }
+
+    /**
+     * Same as {@link ReadOnlyService#combineStream(JPAJinqStream, String[], String[], String[], String, Long, Long)}
+     * with the {@link PreFetch} hooks already executed
+     */
+    private JPAJinqStream<Entity> combineStream(JPAJinqStream<Entity> stream,
+                                                RequestFilters request,
+                                                String sorting,
+                                                Long start,
+                                                Long count) {
+        var plan = plan(request, sorting);
+        stream = applyPlan(stream, plan, request);
         //we are now doing the same thing for sort
-        stream = proceessSorters(stream, sorting);
+        if (plan.sort() != null)
+            stream = plan.sort().sort(stream);
         //handling start and count
         if ((start == null && count != null) || (start != null && count == null))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
@@ -217,6 +398,189 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
         return stream;
     }
 
+    /**
+     * Executes the {@link PreFetch} hooks then applies the resulting filters to the stream
+     *
+     * @param stream           the stream we are working on
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @return the stream with the filters applied to
+     * @throws ResponseStatusException with code 400 with the message "Bad filter" in case of error in the filters
+     */
+    protected JPAJinqStream<Entity> filterStream(JPAJinqStream<Entity> stream,
+                                                 String[] filters,
+                                                 String[] filterOperations,
+                                                 String[] filterValues) {
+        var request = preFetch(filters, filterOperations, filterValues);
+        return applyPlan(stream, plan(request, null), request);
+    }
+
+    /**
+     * Returns the plan of a request, the filters and the sort it uses resolved from their names
+     * <p>
+     * Resolving is a lookup in {@link ReadOnlyService#filterTable} and doesn't allocate, the translation of the
+     * lambdas of the filters and sorts to JPQL is cached by Jinq per lambda, so the plan is not cached
+     *
+     * @param request the filters after executing the {@link PreFetch} hooks
+     * @param sort    the name of the sorting method
+     * @return the plan
+     * @throws ResponseStatusException with code 400 with the following messages:
+     *                                 <ul>
+     *                                     <li>"Bad filter": in case of error in the filters</li>
+     *                                     <li>"Bad sort": in case of error in the sorting methods</li>
+     *                                 </ul>
+     */
+    private QueryPlan<Entity> plan(RequestFilters request, String sort) {
+        var filters = request.filters();
+        var filterOperations = request.filterOperations();
+        var filterValues = request.filterValues();
+        var hasFilters = filters != null && filters.length > 0;
+        //validating filter sizes
+        if (hasFilters && (filterOperations == null || filterValues == null
+                || filters.length != filterOperations.length || filters.length != filterValues.length))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad filter");
+        var sortId = sort != null && !sort.trim().isEmpty() ? sort.toLowerCase() : null;
+        return resolvePlan(filters, filterOperations, filterValues, sortId);
+    }
+
+    /**
+     * Validates and resolves the filters and the sort of a request, see
+     * {@link ReadOnlyService#resolveFilters(String[], String[], String[])}
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param sortId           the lower case name of the sorting method, null for none
+     * @return the plan
+     * @throws ResponseStatusException with code 400 with the following messages:
+     *                                 <ul>
+     *                                     <li>"Bad filter": in case of error in the filters</li>
+     *                                     <li>"Bad sort": in case of error in the sorting methods</li>
+     *                                 </ul>
+     */
+    private QueryPlan<Entity> resolvePlan(String[] filters,
+                                          String[] filterOperations,
+                                          String[] filterValues,
+                                          String sortId) {
+        var resolved = resolveFilters(filters, filterOperations, filterValues);
+        if (resolved == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad filter");
+        Sort<Entity> sorter = null;
+        if (sortId != null) {
+            sorter = sorts.get(sortId);
+            if (sorter == null)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Bad sort");
+        }
+        return new QueryPlan<>(resolved, sorter);
+    }
+
+    /**
+     * Resolves the filters of a request in a single pass, the request is valid when the 3 arrays are of the same size,
+     * every filter exists with the requested operation and all the {@link ReadOnlyService#mandatoryFilters} are
+     * present
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @return the filters in the order of the request, null if the request is not valid
+     */
+    private List<Filter<Entity>> resolveFilters(String[] filters,
+                                                String[] filterOperations,
+                                                String[] filterValues) {
+        var count = filters == null ? 0 : filters.length;
+        //validating filter sizes
+        if (count > 0 && (filterOperations == null || filterValues == null
+                || count != filterOperations.length || count != filterValues.length))
+            return null;
+        var resolved = new ArrayList<Filter<Entity>>(count);
+        var missingMandatory = mandatoryFilters.size();
+        var foundMandatory = missingMandatory == 0 ? null : new boolean[missingMandatory];
+        for (int i = 0; i < count; i++) {
+            var filter = resolveFilter(filters[i], filterOperations[i]);
+            //in case of a bad filter but not empty filter
+            if (filter == null)
+                return null;
+            if (filter.isMandatory()) {
+                var index = mandatoryFilters.indexOf(filter);
+                if (index >= 0 && !foundMandatory[index]) {
+                    foundMandatory[index] = true;
+                    missingMandatory--;
+                }
+            }
+            resolved.add(filter);
+        }
+        //a mandatory filter is missing
+        if (missingMandatory > 0)
+            return null;
+        return List.copyOf(resolved);
+    }
+
+    /**
+     * Applies the filters of a plan to the stream
+     *
+     * @param stream  the stream we are working on
+     * @param plan    the plan of the request
+     * @param request the filters after executing the {@link PreFetch} hooks
+     * @return the stream with the filters applied to
+     */
+    private JPAJinqStream<Entity> applyPlan(JPAJinqStream<Entity> stream, QueryPlan<Entity> plan,
+                                            RequestFilters request) {
+        var planFilters = plan.filters();
+        for (int i = 0; i < planFilters.size(); i++)
+            stream = planFilters.get(i)
+                    .addFilter(stream,
+                            request.filterValues()[i]);
+        return stream;
+    }
+
+    /**
+     * Executes the {@link PreFetch} hooks if any
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @return the filters after executing the hooks
+     */
+    private RequestFilters preFetch(String[] filters, String[] filterOperations, String[] filterValues) {
+        // handles prefetch hook
+        if (!hooks.get(PreFetch.class).isEmpty()) {
+            var container = executePreFetchHooks(filters, filterOperations, filterValues);
+            filters = container.getFilters().toArray(new String[0]);
+            filterOperations = container.getFilterOperations().toArray(new String[0]);
+            filterValues = container.getFilterValues().toArray(new String[0]);
+        }
+        return new RequestFilters(filters, filterOperations, filterValues);
+    }
+
+    /**
+     * Creates a key identifying the passed filters regardless of their order, the filter names and operations are
+     * case-insensitive
+     *
+     * @param request the filters after executing the {@link PreFetch} hooks
+     * @return the key
+     * @throws ResponseStatusException with code 400 with the message "Bad filter" if the arrays are not of the same
+     *                                 size
+     */
+    private List<String> filtersKey(RequestFilters request) {
+        if (request.filters() == null || request.filters().length == 0)
+            return List.of();
+        if (request.filterOperations() == null || request.filterValues() == null
+                || request.filters().length != request.filterOperations().length
+                || request.filters().length != request.filterValues().length)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad filter");
+        var key = new ArrayList<String>(request.filters().length);
+        for (int i = 0; i < request.filters().length; i++)
+            key.add((request.filters()[i] + "\u0000" + request.filterOperations()[i]).toLowerCase() + "\u0000"
+                    + request.filterValues()[i]);
+        Collections.sort(key);
+        return key;
+    }
+
     /**
      * This function is used to execute the post-fetch hooks
      *
@@ -226,28 +590,93 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
      * @throws ResponseStatusException in case of error
      */
     protected final List<Entity> executePostFetchHooks(List<Entity> result, boolean isAll) {
-        if (!hooks.get(PostFetch.class).isEmpty()) {
-            var sortedMethodsKeys = hooks.get(PostFetch.class).keySet().stream().sorted().toList();
-            for (var key : sortedMethodsKeys) {
-                var method = hooks.get(PostFetch.class).get(key);
+        for (var hook : hookChains.get(PostFetch.class)) {
+            var info = (PostFetch) hook.getAnnotation();
+            //detaching the entities of a read-write transaction would drop its pending changes
+            if (info.parallel() && result.size() > info.chunkSize() && readsCommittedData())
+                result = invokeHookInChunks(hook, result, isAll, info.chunkSize());
+            else
+                result = (List<Entity>) invokeHook(hook, result, isAll);
+        }
+        return result;
+    }
+
+    /**
+     * Calls a {@link PostFetch} hook on chunks of the result in parallel, each chunk on its own virtual thread, a chunk
+     * is started once one of the {@link PostFetch#maxConcurrency()} permits of the call is free
+     * <p>
+     * The entities are detached from the persistence context of the request first, so a chunk reading an association
+     * that was not loaded fails instead of sharing the session of the request with the other threads
+     *
+     * @param hook      the hook to call
+     * @param result    the result of the stream
+     * @param isAll     true if the stream is all, false if it is a paginated stream
+     * @param chunkSize the number of entities per chunk
+     * @return the lists returned by the hook joined in the order of the chunks
+     * @throws ResponseStatusException in case of error
+     */
+    private List<Entity> invokeHookInChunks(CompiledHook hook, List<Entity> result, boolean isAll, int chunkSize) {
+        var chunks = new ArrayList<Future<List<Entity>>>((result.size() + chunkSize - 1) / chunkSize);
+        var permits = new Semaphore(Math.max(1, ((PostFetch) hook.getAnnotation()).maxConcurrency()));
+        for (var entity : result)
+            em.detach(entity);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var i = 0; i < result.size(); i += chunkSize) {
+                var chunk = result.subList(i, Math.min(i + chunkSize, result.size()));
+                permits.acquire();
                 try {
-                    result = (List<Entity>) method.invoke(this, result, isAll);
-                } catch (IllegalAccessException | InvocationTargetException ex) {
-                    logger.error("Error during processing hooks in {} cannot call the function, message {}",
-                            this.getClass().getSimpleName(), ex.getMessage(), ex);
-                    throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
-                } catch (ResponseStatusException | HttpStatusCodeException ex) {
-                    var code = 0;
-                    if (ex instanceof ResponseStatusException)
-                        code = ((ResponseStatusException) ex).getStatusCode().value();
-                    else code = ((HttpStatusCodeException) ex).getStatusCode().value();
-                    logger.error("Error during processing hooks in {} cannot call the function, code {}",
-                            this.getClass().getSimpleName(), code);
+                    chunks.add(executor.submit(() -> {
+                        try {
+                            return (List<Entity>) invokeHook(hook, chunk, isAll);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RuntimeException ex) {
+                    permits.release();
                     throw ex;
                 }
             }
+            var joined = new ArrayList<Entity>(result.size());
+            for (var chunk : chunks)
+                joined.addAll(chunk.get());
+            return joined;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Calls a hook, the errors are logged, then {@link ResponseStatusException} and {@link HttpStatusCodeException}
+     * are passed to the client as is while any other exception becomes an error 500
+     *
+     * @param hook     the hook to call
+     * @param argument the first parameter of the hook
+     * @param extra    the second parameter of the hook, ignored if the hook has only one parameter
+     * @return the value returned by the hook, null if it returns void
+     * @throws ResponseStatusException in case of error
+     */
+    protected final Object invokeHook(CompiledHook hook, Object argument, Object extra) {
+        try {
+            return hook.invoke(this, argument, extra);
+        } catch (ResponseStatusException | HttpStatusCodeException ex) {
+            var code = 0;
+            if (ex instanceof ResponseStatusException)
+                code = ((ResponseStatusException) ex).getStatusCode().value();
+            else code = ((HttpStatusCodeException) ex).getStatusCode().value();
+            logger.error("Error during processing hooks in {} cannot call the function, code {}",
+                    this.getClass().getSimpleName(), code);
+            throw ex;
+        } catch (Exception ex) {
+            logger.error("Error during processing hooks in {} cannot call the function, message {}",
+                    this.getClass().getSimpleName(), ex.getMessage(), ex);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
         }
-        return result;
     }
 
 
@@ -267,116 +696,112 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
     protected final FilterContainer executePreFetchHooks(String[] filters, String[] filterOperations,
                                                          String[] filterValues) {
         var container = new FilterContainer();
-        if (filters != null) {
-            container.populateFilters(filters, filterOperations, filterValues);
-            var sortedMethodsKeys = hooks.get(PreFetch.class).keySet().stream().sorted().toList();
-            for (var key : sortedMethodsKeys) {
-                var method = hooks.get(PreFetch.class).get(key);
-                try {
-                    container = (FilterContainer) method.invoke(this, container);
-                } catch (IllegalAccessException | InvocationTargetException ex) {
-                    logger.error("Error during processing hooks in {} cannot call the function, message {}",
-                            this.getClass().getSimpleName(), ex.getMessage(), ex);
-                    throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
-                } catch (ResponseStatusException | HttpStatusCodeException ex) {
-                    var code = 0;
-                    if (ex instanceof ResponseStatusException)
-                        code = ((ResponseStatusException) ex).getStatusCode().value();
-                    else code = ((HttpStatusCodeException) ex).getStatusCode().value();
-                    logger.error("Error during processing hooks in {} cannot call the function, code {}",
-                            this.getClass().getSimpleName(), code);
-                    throw ex;
-                }
-            }
+        //the hooks run even without filters, as they may add mandatory ones
+        container.populateFilters(filters, filterOperations, filterValues);
+        for (var hook : hookChains.get(PreFetch.class)) {
+            //a hook returning void modifies the container in place
+            var returned = invokeHook(hook, container, null);
+            if (returned != null)
+                container = (FilterContainer) returned;
         }
         return container;
     }
 
     /**
-     * This function is used to sort the stream
-     *
-     * @param stream  the stream to sort
-     * @param sorting the sorting method keys
-     * @return the stream with all the sorting and filters add to it
-     * @throws ResponseStatusException with code 400 with the following messages:
-     *                                 <ul>
-     *                                     <li>"Bad sort": in case of error in the sorting methods</li>
-     *                                 </ul>
-     */
-    private JPAJinqStream<Entity> proceessSorters(JPAJinqStream<Entity> stream, String sorting) {
-        if (sorting != null && !sorting.trim()
-                .isEmpty()) {
-            sorting = sorting.toLowerCase();
-            if (this.sorts.containsKey(sorting))
-                stream = sorts.get(sorting)
-                        .sort(stream);
-            else
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                        "Bad sort");
-        }
-        return stream;
-    }
-
-    /**
-     * This function is used to filter the stream
+     * Returns the count of elements in the table based on the passed filters,
+     * <p>
+     * and thus will throw the same errors
      *
-     * @param stream           the stream we are working on
      * @param filters          the filter names
      * @param filterOperations the filter operations
      * @param filterValues     the filter values
-     * @return the stream with filters applied to
-     * @throws ResponseStatusException with code 400 with the following messages:
-     *                                 <ul>
-     *                                     <li>"Bad filter": in case of error in the filters</li>
-     *                                 </ul>
+     * @return the number of elements in the table
      */
-
-    private JPAJinqStream<Entity> processFilters(JPAJinqStream<Entity> stream, String[] filters,
-                                                 String[] filterOperations, String[] filterValues) {
-        if (filters != null && filters.length > 0)
-            if (validateFilters(filters,
-                    filterOperations,
-                    filterValues))
-                stream = applyFilters(stream,
-                        filters,
-                        filterOperations,
-                        filterValues);
-            else
-                //in case of a bad filter but not empty filter throw an error
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                        "Bad filter");
-        return stream;
+    public Long count(String[] filters,
+                      String[] filterOperations,
+                      String[] filterValues) {
+        return count(filters, filterOperations, filterValues, false);
     }
 
     /**
-     * Returns the count of elements in the table based on the passed filters,
+     * Returns the count of elements in the table based on the passed filters, using the count cache when enabled by
+     * {@link ServiceInfo#countCacheSize()}
      * <p>
-     * and thus will throw the same errors
+     * When estimate is true and there are no filters (after executing the {@link PreFetch} hooks), returns the row
+     * count maintained by {@link EntityChangeTracker} without querying the database, the first call seeds it with an
+     * actual count
+     * <p>
+     * In a read-write transaction the caches and the estimate are bypassed, the count may include the uncommitted
+     * writes of the transaction
+     * <p>
+     * and thus will throw the same errors as {@link ReadOnlyService#count(String[], String[], String[])}
      *
      * @param filters          the filter names
      * @param filterOperations the filter operations
      * @param filterValues     the filter values
+     * @param estimate         true to accept an estimated count for unfiltered requests
      * @return the number of elements in the table
      */
     public Long count(String[] filters,
                       String[] filterOperations,
-                      String[] filterValues) {
-        var stream = streamService.createCustomStream(entityClass);
-        stream = combineStream(stream,
-                filters,
-                filterOperations,
-                filterValues,
-                null,
-                null,
-                null);
+                      String[] filterValues,
+                      boolean estimate) {
+        var request = preFetch(filters, filterOperations, filterValues);
+        return count(request, plan(request, null), estimate);
+    }
+
+    /**
+     * Counts the entities matching a request whose {@link PreFetch} hooks were executed, see
+     * {@link ReadOnlyService#count(String[], String[], String[], boolean)}
+     *
+     * @param request  the filters after executing the {@link PreFetch} hooks
+     * @param plan     the plan of the request
+     * @param estimate true to accept an estimated count for unfiltered requests
+     * @return the number of elements in the table
+     */
+    private Long count(RequestFilters request, QueryPlan<Entity> plan, boolean estimate) {
+        var unfiltered = request.filters() == null || request.filters().length == 0;
+        var shared = readsCommittedData();
+        if (estimate && unfiltered && shared) {
+            var rowCount = EntityChangeTracker.rowCount(entityClass);
+            if (rowCount >= 0)
+                return rowCount;
+        }
+        List<String> key = null;
+        long version = 0;
+        if (countCache != null && shared) {
+            key = filtersKey(request);
+            version = EntityChangeTracker.version(entityClass);
+            var cached = countCache.get(key);
+            if (cached != null && cached.version() == version)
+                return cached.count();
+        }
+        var stream = applyPlan(streamService.createCustomStream(entityClass), plan, request);
+        if (logger.isDebugEnabled())
+            logger.debug(stream.getDebugQueryString());
         Long res = stream.count();
         stream.close();
+        if (countCache != null && shared)
+            countCache.put(key, new CachedCount(version, res));
+        if (unfiltered && shared)
+            EntityChangeTracker.seedRowCount(entityClass, res);
         return res;
     }
 
     /**
-     * Retrieve al the entities from the database that matches with the requested filters, sorted by the request
-     * sorting method and paged using the requested pagination
+     * Tells whether the reads of the current thread can be shared through the caches, a read-write transaction may read
+     * its own uncommitted writes, recorded by {@link EntityChangeTracker} only once committed
+     *
+     * @return true outside of a transaction or in a read-only one
+     */
+    private static boolean readsCommittedData() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * Retrieve the entities like {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)} but
+     * instead of counting, tells whether more entities exist after the page by fetching one extra row
      * <p>
      * and thus will throw the same errors
      *
@@ -386,63 +811,1191 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
      * @param start            the start value of the pagination (when to start fetching)
      * @param count            the count value of the pagination (the number of elements to fetch)
      * @param sort             the name of the sorting method
-     * @return a list of rows (DTO objects) from the table
+     * @return the page of entities and whether more exist
      */
-    public List<Entity> all(String[] filters,
-                            String[] filterOperations,
-                            String[] filterValues,
-                            Long start,
-                            Long count,
-                            String sort
-    ) {
-        var stream = streamService.createCustomStream(entityClass);
-        stream = combineStream(stream,
+    public SlicedResult<Entity> slice(String[] filters,
+                                      String[] filterOperations,
+                                      String[] filterValues,
+                                      Long start,
+                                      Long count,
+                                      String sort) {
+        return slice(filters, filterOperations, filterValues, start, count, sort, false);
+    }
+
+    /**
+     * Same as {@link ReadOnlyService#slice(String[], String[], String[], Long, Long, String)}, optionally loading the
+     * entities as read-only
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param start            the start value of the pagination (when to start fetching)
+     * @param count            the count value of the pagination (the number of elements to fetch)
+     * @param sort             the name of the sorting method
+     * @param readOnly         true to load the entities as read-only to read their basic attributes, hibernate
+     *                         keeps no snapshot of them, the associations of {@link ServiceInfo#fetch()} are not
+     *                         loaded and the caches are bypassed, changes to the entities are never saved
+     * @return the page of entities and whether more exist
+     */
+    public SlicedResult<Entity> slice(String[] filters,
+                                      String[] filterOperations,
+                                      String[] filterValues,
+                                      Long start,
+                                      Long count,
+                                      String sort,
+                                      boolean readOnly) {
+        if (start == null || count == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad pagination");
+        var stream = combineStream(streamService.createCustomStream(entityClass),
                 filters,
                 filterOperations,
                 filterValues,
                 sort,
                 start,
-                count);
-        logger.info(stream.getDebugQueryString());
-        //mapping the entities to DTOs
-        var result = stream.toList();
+                count + 1);
+        List<Entity> result;
+        try {
+            result = readOnly(readOnly, stream::toList);
+        } finally {
+            stream.close();
+        }
+        var hasMore = result.size() > count;
+        if (hasMore)
+            result = new ArrayList<>(result.subList(0, count.intValue()));
+        if (!readOnly)
+            applyFetchPlan(result);
         if (!hooks.get(PostFetch.class).isEmpty())
             result = executePostFetchHooks(result, true);
+        return new SlicedResult<>(result, hasMore);
+    }
+
+    /**
+     * Retrieve al the entities from the database that matches with the requested filters, sorted by the request
+     * sorting method and paged using the requested pagination
+     * <p>
+     * and thus will throw the same errors
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param start            the start value of the pagination (when to start fetching)
+     * @param count            the count value of the pagination (the number of elements to fetch)
+     * @param sort             the name of the sorting method
+     * @return a list of rows (DTO objects) from the table
+     */
+    public List<Entity> all(String[] filters,
+                            String[] filterOperations,
+                            String[] filterValues,
+                            Long start,
+                            Long count,
+                            String sort
+    ) {
+        return all(filters, filterOperations, filterValues, start, count, sort, false);
+    }
+
+    /**
+     * Same as {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}, optionally loading the
+     * entities as read-only
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param start            the start value of the pagination (when to start fetching)
+     * @param count            the count value of the pagination (the number of elements to fetch)
+     * @param sort             the name of the sorting method
+     * @param readOnly         true to load the entities as read-only to read their basic attributes, hibernate
+     *                         keeps no snapshot of them, the associations of {@link ServiceInfo#fetch()} are not
+     *                         loaded and the caches are bypassed, changes to the entities are never saved
+     * @return a list of rows (DTO objects) from the table
+     */
+    public List<Entity> all(String[] filters,
+                            String[] filterOperations,
+                            String[] filterValues,
+                            Long start,
+                            Long count,
+                            String sort,
+                            boolean readOnly) {
+        var request = preFetch(filters, filterOperations, filterValues);
+        List<Entity> result;
+        if (readOnly)
+            result = readOnly(true, () -> fetchAll(request, start, count, sort));
+        else {
+            result = resultCache == null || !readsCommittedData() ? fetchAll(request, start, count, sort) :
+                    cachedAll(request, start, count, sort);
+            applyFetchPlan(result);
+        }
+        if (!hooks.get(PostFetch.class).isEmpty())
+            result = executePostFetchHooks(result, true);
+        return result;
+    }
+
+    private List<Entity> fetchAll(RequestFilters request, Long start, Long count, String sort) {
+        var stream = combineStream(streamService.createCustomStream(entityClass),
+                request,
+                sort,
+                start,
+                count);
+        logger.info(stream.getDebugQueryString());
+        //mapping the entities to DTOs
+        var result = stream.toList();
+        stream.close();
+        return result;
+    }
+
+    /**
+     * Returns the result of the request from {@link ReadOnlyService#resultCache} or fetches it, concurrent requests
+     * with the same key wait for the first one instead of running the same query
+     * <p>
+     * Only the ids are cached and shared with the waiting requests, every request loads its own entities by id, so no
+     * entity of a persistence context reaches another request. A request in a read-write transaction doesn't use the
+     * cache, it may read its own uncommitted writes
+     */
+    private List<Entity> cachedAll(RequestFilters request, Long start, Long count, String sort) {
+        var key = new ResultKey(filtersKey(request), sort == null ? null : sort.toLowerCase(), start, count);
+        var version = EntityChangeTracker.version(entityClass);
+        var cached = resultCache.get(key);
+        if (cached != null && cached.version() == version)
+            return reload(cached.items());
+        var pending = new CompletableFuture<List<Id>>();
+        var running = pendingResults.putIfAbsent(key, pending);
+        if (running != null) {
+            List<Id> ids;
+            try {
+                ids = running.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause)
+                    throw cause;
+                throw ex;
+            }
+            return reload(ids);
+        }
+        try {
+            var result = fetchAll(request, start, count, sort);
+            var ids = result.stream().map(this::extractId).toList();
+            resultCache.put(key, new CachedResult<>(version, ids));
+            pending.complete(ids);
+            return result;
+        } catch (RuntimeException ex) {
+            pending.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            pendingResults.remove(key, pending);
+        }
+    }
+
+    /**
+     * Loads the entities of a cached result by their ids, bypassing {@link ReadOnlyService#entityCache}, in the order
+     * of the ids, the rows deleted since are skipped
+     *
+     * @param ids the cached ids
+     * @return the entities managed by the persistence context of the request
+     */
+    private List<Entity> reload(List<Id> ids) {
+        var found = loadByIds(ids);
+        var result = new ArrayList<Entity>(ids.size());
+        for (var id : ids) {
+            var entity = found.get(idKey(id));
+            if (entity != null)
+                result.add(entity);
+        }
+        return result;
+    }
+
+    /**
+     * Retrieve a page of entities along with the total number of entities matching the same filters
+     * <p>
+     * The {@link PreFetch} hooks and the validation of the filters run once for both the page and the count, the count
+     * uses a stream of its own and the count cache of {@link ServiceInfo#countCacheSize()}. The count query is skipped
+     * entirely when the total can be deduced from the page, that is when the pagination is not used or when the page
+     * is the last one
+     * <p>
+     * Will throw the same errors as {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param start            the start value of the pagination (when to start fetching)
+     * @param count            the count value of the pagination (the number of elements to fetch)
+     * @param sort             the name of the sorting method
+     * @return the page of entities with the total
+     */
+    public PagedResult<Entity> page(String[] filters,
+                                    String[] filterOperations,
+                                    String[] filterValues,
+                                    Long start,
+                                    Long count,
+                                    String sort) {
+        if ((start == null && count != null) || (start != null && count == null))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad pagination");
+        var request = preFetch(filters, filterOperations, filterValues);
+        var plan = plan(request, sort);
+        var stream = applyPlan(streamService.createCustomStream(entityClass), plan, request);
+        if (plan.sort() != null)
+            stream = plan.sort().sort(stream);
+        if (start != null)
+            stream = stream.skip(start)
+                    .limit(count);
         if (logger.isDebugEnabled())
             logger.debug(stream.getDebugQueryString());
+        var result = stream.toList();
         stream.close();
+        Long total;
+        if (start == null)
+            total = (long) result.size();
+        else if (result.size() < count && (!result.isEmpty() || start == 0))
+            total = start + result.size();
+        else
+            //a consumed stream cannot be counted, the count runs on its own stream through the count cache
+            total = count(request, plan, false);
+        applyFetchPlan(result);
+        if (!hooks.get(PostFetch.class).isEmpty())
+            result = executePostFetchHooks(result, true);
+        return new PagedResult<>(result, total);
+    }
+
+    /**
+     * Searches the entities in the Hibernate Search index on the {@link ServiceInfo#searchFields()}, ordered by
+     * relevance
+     * <p>
+     * The pagination and the total are computed by the index, the hits of the page are loaded from the database in one
+     * batch then go through the fetch plan and the {@link PostFetch} hooks like
+     * {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}
+     *
+     * @param query the text to search, using the simple query string syntax (<code>+</code>, <code>|</code>,
+     *              <code>-</code>, <code>"phrase"</code>, <code>prefix*</code>), all the words must match by default
+     * @param start the index of the first hit, 0 if not passed
+     * @param count the number of hits, {@link ReadOnlyService#SEARCH_PAGE_SIZE} if not passed
+     * @return the page of entities with the total number of hits
+     * @throws ResponseStatusException with code 404 if the service has no search fields, and code 400 with the
+     *                                 following messages:
+     *                                 <ul>
+     *                                     <li>"Bad query": in case the query is empty</li>
+     *                                     <li>"Bad filter": in case a {@link PreFetch} hook adds a filter that is not
+     *                                     a {@link SearchFilter}</li>
+     *                                     <li>"Bad pagination": in case of negative start or count</li>
+     *                                 </ul>
+     */
+    public PagedResult<Entity> search(String query, Long start, Long count) {
+        return search(query, null, null, null, start, count);
+    }
+
+    /**
+     * Searches the entities in the Hibernate Search index on the {@link ServiceInfo#searchFields()} that match the
+     * filters, ordered by relevance
+     * <p>
+     * The filters go through the {@link PreFetch} hooks and the validation like
+     * {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}, they must all be
+     * {@link SearchFilter}s so they can run in the index with the query
+     *
+     * @param query            the text to search, like {@link ReadOnlyService#search(String, Long, Long)}
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param start            the index of the first hit, 0 if not passed
+     * @param count            the number of hits, {@link ReadOnlyService#SEARCH_PAGE_SIZE} if not passed
+     * @return the page of entities with the total number of hits
+     * @throws ResponseStatusException with code 404 if the service has no search fields, and code 400 with the
+     *                                 following messages:
+     *                                 <ul>
+     *                                     <li>"Bad query": in case the query is empty</li>
+     *                                     <li>"Bad filter": in case of error in the filters or a filter that is not a
+     *                                     {@link SearchFilter}</li>
+     *                                     <li>"Bad pagination": in case of negative start or count</li>
+     *                                 </ul>
+     */
+    public PagedResult<Entity> search(String query,
+                                      String[] filters,
+                                      String[] filterOperations,
+                                      String[] filterValues,
+                                      Long start,
+                                      Long count) {
+        if (searchFields.length == 0)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        if (query == null || query.isBlank())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad query");
+        var offset = start == null ? 0 : start;
+        var limit = count == null ? SEARCH_PAGE_SIZE : count;
+        if (offset < 0 || limit < 0 || limit > Integer.MAX_VALUE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad pagination");
+        var indexFilters = indexFilters(filters, filterOperations, filterValues);
+        var hits = searchSession.search(entityClass)
+                .where(f -> indexFilters.where(f, f.simpleQueryString()
+                        .fields(searchFields)
+                        .matching(query)
+                        .defaultOperator(BooleanOperator.AND)))
+                .fetch(Math.toIntExact(offset), (int) limit);
+        List<Entity> result = new ArrayList<>(hits.hits());
+        applyFetchPlan(result);
+        if (!hooks.get(PostFetch.class).isEmpty())
+            result = executePostFetchHooks(result, true);
+        return new PagedResult<>(result, hits.total().hitCount());
+    }
+
+    /**
+     * Suggests the entities whose {@link ServiceInfo#autocompleteFields()} have words starting with the words of the
+     * prefix, ordered by relevance
+     * <p>
+     * The ids of the results are cached by prefix in {@link ReadOnlyService#autocompleteCache}, the index query stops
+     * after {@link ReadOnlyService#AUTOCOMPLETE_TIMEOUT_MILLIS}, the {@link PostFetch} hooks are executed on every call
+     *
+     * @param prefix the text typed by the user, the operators of the query syntax are not interpreted
+     * @param count  the number of suggestions, {@link ReadOnlyService#AUTOCOMPLETE_SIZE} if not passed
+     * @return the suggested entities
+     * @throws ResponseStatusException with code 404 if the service has no autocomplete fields, and code 400 with the
+     *                                 following messages:
+     *                                 <ul>
+     *                                     <li>"Bad query": in case the prefix is empty</li>
+     *                                     <li>"Bad filter": in case a {@link PreFetch} hook adds a filter that is not
+     *                                     a {@link SearchFilter}</li>
+     *                                     <li>"Bad pagination": in case of negative count</li>
+     *                                 </ul>
+     */
+    public List<Entity> autocomplete(String prefix, Integer count) {
+        return autocomplete(prefix, null, null, null, count);
+    }
+
+    /**
+     * Suggests the entities matching the filters whose {@link ServiceInfo#autocompleteFields()} have words starting
+     * with the words of the prefix, ordered by relevance
+     * <p>
+     * The filters go through the {@link PreFetch} hooks and the validation like
+     * {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}, they must all be
+     * {@link SearchFilter}s so they can run in the index with the prefix. The ids of the results are cached by prefix,
+     * count and filters after the hooks in {@link ReadOnlyService#autocompleteCache}, a cached result is loaded again
+     * from the database on every call so no managed entity is shared between requests
+     *
+     * @param prefix           the text typed by the user, the operators of the query syntax are not interpreted
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param count            the number of suggestions, {@link ReadOnlyService#AUTOCOMPLETE_SIZE} if not passed
+     * @return the suggested entities
+     * @throws ResponseStatusException with code 404 if the service has no autocomplete fields, and code 400 with the
+     *                                 following messages:
+     *                                 <ul>
+     *                                     <li>"Bad query": in case the prefix is empty</li>
+     *                                     <li>"Bad filter": in case of error in the filters or a filter that is not a
+     *                                     {@link SearchFilter}</li>
+     *                                     <li>"Bad pagination": in case of negative count</li>
+     *                                 </ul>
+     */
+    public List<Entity> autocomplete(String prefix,
+                                     String[] filters,
+                                     String[] filterOperations,
+                                     String[] filterValues,
+                                     Integer count) {
+        if (autocompleteFields.length == 0)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        if (prefix == null || prefix.isBlank())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad query");
+        var limit = count == null ? AUTOCOMPLETE_SIZE : count;
+        if (limit < 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad pagination");
+        var indexFilters = indexFilters(filters, filterOperations, filterValues);
+        var key = new AutocompleteKey(prefix.trim().toLowerCase(), limit, filtersKey(indexFilters.request()));
+        var version = EntityChangeTracker.version(entityClass);
+        List<Entity> result = null;
+        if (autocompleteCache != null) {
+            var cached = autocompleteCache.get(key);
+            if (cached != null && cached.version() == version)
+                result = reload(cached.items());
+        }
+        if (result == null) {
+            var hits = searchSession.search(entityClass)
+                    .where(f -> indexFilters.where(f, f.simpleQueryString()
+                            .fields(autocompleteFields)
+                            .matching(prefix)
+                            .defaultOperator(BooleanOperator.AND)
+                            .flags(SimpleQueryFlag.WHITESPACE)))
+                    .truncateAfter(AUTOCOMPLETE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .fetch(limit);
+            result = new ArrayList<>(hits.hits());
+            if (autocompleteCache != null && !hits.timedOut())
+                autocompleteCache.put(key, new CachedResult<>(version, result.stream().map(this::extractId).toList()));
+        }
+        applyFetchPlan(result);
+        if (!hooks.get(PostFetch.class).isEmpty())
+            result = executePostFetchHooks(result, true);
+        return result;
+    }
+
+    /**
+     * Counts the entities matching the filters per value, or per range of values, of the requested facets in a single
+     * query to the Hibernate Search index
+     * <p>
+     * The filters go through the {@link PreFetch} hooks and the validation like
+     * {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}, they must all be
+     * {@link SearchFilter}s so they can run in the index
+     *
+     * @param fields           the facets to count, from {@link ServiceInfo#facetFields()} and
+     *                         {@link ServiceInfo#facetRanges()}, all of them if not passed
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @return the counts by value, or by range written <code>[lower,upper)</code>, by facet in the requested order,
+     * the values of a field are sorted by descending count and limited to {@link ReadOnlyService#FACET_TERMS_SIZE}
+     * @throws ResponseStatusException with code 404 if the service has no facets, and code 400 with the following
+     *                                 messages:
+     *                                 <ul>
+     *                                     <li>"Bad filter": in case of error in the filters or a filter that is not a
+     *                                     {@link SearchFilter}</li>
+     *                                     <li>"Bad facet": in case of unknown facet</li>
+     *                                 </ul>
+     */
+    public Map<String, Map<String, Long>> facets(String[] fields,
+                                                 String[] filters,
+                                                 String[] filterOperations,
+                                                 String[] filterValues) {
+        var facets = facets();
+        if (facets.isEmpty())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        var indexFilters = indexFilters(filters, filterOperations, filterValues);
+        var requested = new ArrayList<Facet>();
+        for (var field : fields == null || fields.length == 0 ? facets.keySet().toArray(String[]::new) : fields) {
+            var facet = facets.get(field.trim());
+            if (facet == null)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad facet");
+            if (!requested.contains(facet))
+                requested.add(facet);
+        }
+        var query = searchSession.search(entityClass)
+                .where(f -> indexFilters.where(f, null));
+        var keys = new ArrayList<AggregationKey<Map<Object, Long>>>(requested.size());
+        for (var facet : requested) {
+            var key = AggregationKey.<Map<Object, Long>>of(facet.field());
+            keys.add(key);
+            query.aggregation(key, f -> facetAggregation(f, facet));
+        }
+        var hits = query.fetch(0);
+        var result = new LinkedHashMap<String, Map<String, Long>>();
+        for (var i = 0; i < requested.size(); i++) {
+            var counts = new LinkedHashMap<String, Long>();
+            hits.aggregation(keys.get(i)).forEach((value, count) -> counts.put(
+                    value instanceof Range<?> range ? rangeKey(range) : String.valueOf(value), count));
+            result.put(requested.get(i).field(), counts);
+        }
         return result;
     }
 
+    /**
+     * Executes the {@link PreFetch} hooks and resolves the filters of a request answered by the Hibernate Search index
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @return the filters after the hooks
+     * @throws ResponseStatusException with code 400 with the message "Bad filter" in case of error in the filters or
+     *                                 a filter that is not a {@link SearchFilter}
+     */
+    private IndexFilters indexFilters(String[] filters, String[] filterOperations, String[] filterValues) {
+        var request = preFetch(filters, filterOperations, filterValues);
+        var plan = plan(request, null);
+        var searchFilters = new ArrayList<SearchFilter<?, ?>>(plan.filters().size());
+        for (var filter : plan.filters()) {
+            if (!(filter instanceof SearchFilter<?, ?> searchFilter))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad filter");
+            searchFilters.add(searchFilter);
+        }
+        return new IndexFilters(request, searchFilters);
+    }
+
+    private AggregationFinalStep<Map<Object, Long>> facetAggregation(SearchAggregationFactory f, Facet facet) {
+        var type = (Class<Object>) facet.type();
+        if (facet.ranges() == null)
+            return f.terms().field(facet.field(), type).maxTermCount(FACET_TERMS_SIZE);
+        return (AggregationFinalStep) f.range().field(facet.field(), type).ranges(facet.ranges());
+    }
+
+    private static String rangeKey(Range<?> range) {
+        return (range.lowerBoundValue().isPresent() ? "[" + range.lowerBoundValue().get() : "(*")
+                + "," + (range.upperBoundValue().isPresent() ? range.upperBoundValue().get() : "*") + ")";
+    }
+
+    /**
+     * Resolves {@link ReadOnlyService#facets} from the index metamodel on first use, the index is not ready when the
+     * service is created
+     *
+     * @return the facets by their field
+     * @throws IllegalStateException if a field is not an aggregable field of the index or a boundary cannot be parsed
+     */
+    private Map<String, Facet> facets() {
+        var resolved = facets;
+        if (resolved != null)
+            return resolved;
+        var serviceInfo = this.getClass().getAnnotation(ServiceInfo.class);
+        var result = new LinkedHashMap<String, Facet>();
+        if (serviceInfo.facetFields().length > 0 || serviceInfo.facetRanges().length > 0) {
+            var descriptor = Search.mapping(em.getEntityManagerFactory()).indexedEntity(entityClass)
+                    .indexManager().descriptor();
+            for (var field : serviceInfo.facetFields())
+                result.put(field, new Facet(field, facetType(descriptor.field(field), field), null));
+            for (var range : serviceInfo.facetRanges()) {
+                var type = facetType(descriptor.field(range.field()), range.field());
+                var ranges = new ArrayList<Range<Object>>(range.boundaries().length + 1);
+                Object lower = null;
+                for (var boundary : range.boundaries()) {
+                    var upper = parseBoundary(type, boundary);
+                    ranges.add(Range.canonical(lower, upper));
+                    lower = upper;
+                }
+                ranges.add(Range.canonical(lower, null));
+                result.put(range.field(), new Facet(range.field(), type, List.copyOf(ranges)));
+            }
+        }
+        facets = Collections.unmodifiableMap(result);
+        return facets;
+    }
+
+    private Class<?> facetType(Optional<IndexFieldDescriptor> descriptor, String field) {
+        if (descriptor.isEmpty() || !descriptor.get().isValueField()
+                || !descriptor.get().toValueField().type().aggregable())
+            throw new IllegalStateException("Facet %s of %s is not an aggregable field of the index"
+                    .formatted(field, this.getClass().getSimpleName()));
+        return descriptor.get().toValueField().type().dslArgumentClass();
+    }
+
+    private Object parseBoundary(Class<?> type, String boundary) {
+        try {
+            if (type == String.class)
+                return boundary;
+            if (type == Integer.class)
+                return Integer.valueOf(boundary);
+            if (type == Long.class)
+                return Long.valueOf(boundary);
+            if (type == Short.class)
+                return Short.valueOf(boundary);
+            if (type == Byte.class)
+                return Byte.valueOf(boundary);
+            if (type == Double.class)
+                return Double.valueOf(boundary);
+            if (type == Float.class)
+                return Float.valueOf(boundary);
+            if (type == BigDecimal.class)
+                return new BigDecimal(boundary);
+            if (type == BigInteger.class)
+                return new BigInteger(boundary);
+            if (type == LocalDate.class)
+                return LocalDate.parse(boundary);
+            if (type == LocalDateTime.class)
+                return LocalDateTime.parse(boundary);
+            if (type == Instant.class)
+                return Instant.parse(boundary);
+        } catch (RuntimeException ex) {
+            throw new IllegalStateException("Bad facet boundary %s of %s".formatted(boundary,
+                    this.getClass().getSimpleName()), ex);
+        }
+        throw new IllegalStateException("Range facets of %s are not supported in %s".formatted(type.getSimpleName(),
+                this.getClass().getSimpleName()));
+    }
+
+    /**
+     * Streams all the entities from the database that matches with the requested filters, sorted by the requested
+     * sorting method, without holding the whole result in memory
+     * <p>
+     * The rows are fetched in chunks of {@link ReadOnlyService#STREAM_PAGE_SIZE} using keyset pagination, every chunk
+     * starts right after the last row of the previous one, so the whole export costs one index seek per chunk instead
+     * of skipping all the previous rows. Each chunk goes through the {@link PostFetch} hooks, then every entity is
+     * passed to the consumer, after that the persistence context is cleared, so the memory used stays the same no
+     * matter the size of the table.
+     * <p>
+     * Because of the clearing, it must not be called with pending changes in the persistence context
+     * <p>
+     * Will throw the same errors as {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param sort             the name of the sorting method, it must support keyset pagination, see
+     *                         {@link Sort#seek(JPAJinqStream, String)}
+     * @param consumer         receives every entity in order
+     * @throws ResponseStatusException with code 400 and message "Bad sort" when the sort is missing or doesn't support
+     *                                 keyset pagination, before any entity is passed to the consumer
+     */
+    public void stream(String[] filters,
+                       String[] filterOperations,
+                       String[] filterValues,
+                       String sort,
+                       Consumer<Entity> consumer) {
+        if (sort == null || sort.trim().isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad sort");
+        var request = preFetch(filters, filterOperations, filterValues);
+        var plan = plan(request, sort);
+        var sorter = plan.sort();
+        if (!sorter.supportsKeyset())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad sort");
+        String cursor = null;
+        List<Entity> page;
+        do {
+            var stream = applyPlan(streamService.createCustomStream(entityClass), plan, request);
+            if (cursor != null)
+                stream = sorter.seek(stream, cursor);
+            stream = sorter.sort(stream)
+                    .limit(STREAM_PAGE_SIZE);
+            try {
+                if (logger.isDebugEnabled())
+                    logger.debug(stream.getDebugQueryString());
+                page = stream.toList();
+            } finally {
+                stream.close();
+            }
+            if (page.isEmpty())
+                break;
+            cursor = sorter.cursorOf(page.get(page.size() - 1));
+            applyFetchPlan(page);
+            var result = hooks.get(PostFetch.class).isEmpty() ? page : executePostFetchHooks(page, true);
+            result.forEach(consumer);
+            em.clear();
+        } while (page.size() == STREAM_PAGE_SIZE);
+    }
+
+    /**
+     * Retrieve a page of entities using keyset (seek) pagination, instead of skipping the previous rows the query
+     * starts right after the row of the cursor, so a deep page costs the same as the first one
+     * <p>
+     * The sorting method must support keyset pagination, see {@link Sort#seek(JPAJinqStream, String)}
+     * <p>
+     * Will throw the same errors as {@link ReadOnlyService#all(String[], String[], String[], Long, Long, String)}
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param count            the number of elements to fetch
+     * @param sort             the name of the sorting method
+     * @param after            the cursor returned with the previous page, null or empty to fetch the first page
+     * @return the page of entities with the cursor of the next page
+     * @throws ResponseStatusException with code 400 with the following messages:
+     *                                 <ul>
+     *                                     <li>"Bad sort": when the sort is missing or doesn't support keyset
+     *                                     pagination</li>
+     *                                     <li>"Bad pagination": when the count is missing or not positive</li>
+     *                                     <li>"Bad cursor": when the cursor is not a cursor of the same sort</li>
+     *                                 </ul>
+     */
+    public KeysetPage<Entity> after(String[] filters,
+                                    String[] filterOperations,
+                                    String[] filterValues,
+                                    Long count,
+                                    String sort,
+                                    String after) {
+        return after(filters, filterOperations, filterValues, count, sort, after, false);
+    }
+
+    /**
+     * Same as {@link ReadOnlyService#after(String[], String[], String[], Long, String, String)}, optionally loading the
+     * entities as read-only
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     * @param count            the number of elements to fetch
+     * @param sort             the name of the sorting method
+     * @param after            the cursor returned with the previous page, null or empty to fetch the first page
+     * @param readOnly         true to load the entities as read-only to read their basic attributes, hibernate
+     *                         keeps no snapshot of them, the associations of {@link ServiceInfo#fetch()} are not
+     *                         loaded and the caches are bypassed, changes to the entities are never saved
+     * @return the page of entities with the cursor of the next page
+     */
+    public KeysetPage<Entity> after(String[] filters,
+                                    String[] filterOperations,
+                                    String[] filterValues,
+                                    Long count,
+                                    String sort,
+                                    String after,
+                                    boolean readOnly) {
+        if (count == null || count <= 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad pagination");
+        if (sort == null || sort.trim().isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad sort");
+        var sortId = sort.toLowerCase();
+        var request = preFetch(filters, filterOperations, filterValues);
+        var plan = plan(request, sortId);
+        var sorter = plan.sort();
+        if (!sorter.supportsKeyset())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad sort");
+        var stream = applyPlan(streamService.createCustomStream(entityClass), plan, request);
+        if (after != null && !after.isEmpty())
+            stream = sorter.seek(stream, decodeCursor(sortId, after));
+        stream = sorter.sort(stream)
+                .limit(count);
+        if (logger.isDebugEnabled())
+            logger.debug(stream.getDebugQueryString());
+        List<Entity> result;
+        try {
+            result = readOnly(readOnly, stream::toList);
+        } finally {
+            stream.close();
+        }
+        String next = null;
+        if (!result.isEmpty() && result.size() == count)
+            next = encodeCursor(sortId, sorter.cursorOf(result.get(result.size() - 1)));
+        if (!readOnly)
+            applyFetchPlan(result);
+        if (!hooks.get(PostFetch.class).isEmpty())
+            result = executePostFetchHooks(result, true);
+        return new KeysetPage<>(result, next);
+    }
+
+    /**
+     * Wraps the cursor created by a sort into an opaque string bound to the sort that created it
+     *
+     * @param sortId the id of the sort
+     * @param cursor the cursor created by the sort
+     * @return the opaque cursor
+     */
+    private String encodeCursor(String sortId, String cursor) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((sortId + ":" + cursor).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Unwraps an opaque cursor created by {@link ReadOnlyService#encodeCursor(String, String)}
+     *
+     * @param sortId the id of the sort used in the current request
+     * @param after  the opaque cursor
+     * @return the cursor as created by the sort
+     * @throws ResponseStatusException with code 400 and message "Bad cursor" if the cursor is malformed or was
+     *                                 created by another sort
+     */
+    private String decodeCursor(String sortId, String after) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad cursor");
+        }
+        var prefix = sortId + ":";
+        if (!decoded.startsWith(prefix))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Bad cursor");
+        return decoded.substring(prefix.length());
+    }
+
     /**
      * Returns a set of entities based on the passed identities.
      * <p>
      * Useful to an entity or entities based on id\ids
+     * <p>
+     * Repeated ids are fetched once, the ids are fetched by chunks of {@link ServiceInfo#idChunkSize()}, composite ids
+     * are matched with a row value predicate <code>(a, b) in ((?, ?), ...)</code> instead of one query per id.
+     * The entities are returned in the order of the request, missing ids are skipped
      *
      * @param idString the ids inform of string (more than one identity and all parts of each identity)
      * @return a list of matching entities as DTOs
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} if the ids cannot be parsed
      */
     public List<Entity> getOnes(String idString) {
-        List<Id> ids = convertStringToIds(idString.split(","));
-        var result = repository.findAllById(ids);
+        return getOnes(idString, false);
+    }
+
+    /**
+     * Same as {@link ReadOnlyService#getOnes(String)}, optionally loading the entities as read-only
+     *
+     * @param idString the ids inform of string (more than one identity and all parts of each identity)
+     * @param readOnly true to load the entities as read-only to read their basic attributes, hibernate keeps no
+     *                 snapshot of them, the associations of {@link ServiceInfo#fetch()} are not loaded and
+     *                 {@link ReadOnlyService#entityCache} is bypassed, changes to the entities are never saved
+     * @return a list of matching entities
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} if the ids cannot be parsed
+     */
+    public List<Entity> getOnes(String idString, boolean readOnly) {
+        var ids = convertStringToIds(idString);
+        var uniqueIds = new LinkedHashMap<String, Id>(ids.size() * 2);
+        for (var id : ids)
+            uniqueIds.putIfAbsent(idKey(id), id);
+        Map<String, Entity> found;
+        if (readOnly)
+            found = readOnly(true, () -> loadByIds(new ArrayList<>(uniqueIds.values())));
+        else {
+            var version = EntityChangeTracker.version(entityClass);
+            var loaded = new ArrayList<Entity>();
+            found = fetchIds(uniqueIds, loaded);
+            applyFetchPlan(loaded);
+            cacheCopies(loaded, version);
+        }
+        List<Entity> result = new ArrayList<>(found.size());
+        for (var key : uniqueIds.keySet()) {
+            var entity = found.get(key);
+            if (entity != null)
+                result.add(entity);
+        }
         if (!hooks.get(PostFetch.class).isEmpty())
             result = executePostFetchHooks(result, false);
         return result;
     }
 
+    /**
+     * Takes copies of the ids found in {@link ReadOnlyService#entityCache} and fetches the missing ones by chunks of
+     * {@link ReadOnlyService#idChunkSize}
+     *
+     * @param uniqueIds the ids by their {@link ReadOnlyService#idKey(Object)}
+     * @param loaded    receives the entities loaded from the database
+     * @return the entities found by their {@link ReadOnlyService#idKey(Object)}
+     */
+    private Map<String, Entity> fetchIds(Map<String, Id> uniqueIds, List<Entity> loaded) {
+        var found = new HashMap<String, Entity>(uniqueIds.size() * 2);
+        var chunk = new ArrayList<Id>(Math.min(idChunkSize, uniqueIds.size()));
+        for (var entry : uniqueIds.entrySet()) {
+            if (entityCache != null) {
+                var cached = (byte[]) entityCache.get(cacheKey(entry.getKey()));
+                if (cached != null) {
+                    found.put(entry.getKey(), copyOf(cached));
+                    continue;
+                }
+            }
+            chunk.add(entry.getValue());
+            if (chunk.size() == idChunkSize) {
+                fetchChunk(chunk, found, loaded);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty())
+            fetchChunk(chunk, found, loaded);
+        return found;
+    }
+
+    /**
+     * Loads the associations of {@link ServiceInfo#fetch()} for a list of entities, one query per path and per chunk
+     * of {@link ReadOnlyService#idChunkSize} entities, the associations are initialized on the managed entities
+     *
+     * @param entities the entities to load the associations of
+     */
+    protected final void applyFetchPlan(List<Entity> entities) {
+        if (fetchPaths.length == 0 || entities.isEmpty())
+            return;
+        for (var query : fetchQueries())
+            for (var i = 0; i < entities.size(); i += idChunkSize)
+                em.createQuery(query, entityClass)
+                        .setParameter("entities", entities.subList(i, Math.min(i + idChunkSize, entities.size())))
+                        .getResultList();
+    }
+
+    private List<String> fetchQueries() {
+        var result = fetchQueries;
+        if (result == null) {
+            var entityName = em.getMetamodel().entity(entityClass).getName();
+            result = new ArrayList<>(fetchPaths.length);
+            for (var path : fetchPaths) {
+                var query = new StringBuilder("select e from ").append(entityName).append(" e");
+                var alias = "e";
+                var parts = path.split("\\.");
+                for (var i = 0; i < parts.length; i++) {
+                    query.append(" left join fetch ").append(alias).append('.').append(parts[i].trim())
+                            .append(" f").append(i);
+                    alias = "f" + i;
+                }
+                result.add(query.append(" where e in :entities").toString());
+            }
+            result = List.copyOf(result);
+            fetchQueries = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the basic attributes of the entity, the attributes stored in its own row, including the id, which can be
+     * read without loading an association
+     *
+     * @return the java types of the attributes by their names
+     */
+    public final Map<String, Class<?>> basicAttributes() {
+        var result = basicAttributes;
+        if (result == null) {
+            result = new HashMap<>();
+            for (var attribute : em.getMetamodel().entity(entityClass).getSingularAttributes())
+                if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                    result.put(attribute.getName(), attribute.getJavaType());
+            result = Map.copyOf(result);
+            basicAttributes = result;
+        }
+        return result;
+    }
+
+    /**
+     * Runs a fetch with the entities loaded as read-only by the session when requested
+     *
+     * @param readOnly true to load the entities as read-only
+     * @param fetch    the fetch to run
+     * @param <T>      the type of the result
+     * @return the result of the fetch
+     */
+    private <T> T readOnly(boolean readOnly, Supplier<T> fetch) {
+        if (!readOnly)
+            return fetch.get();
+        var session = em.unwrap(Session.class);
+        var previous = session.isDefaultReadOnly();
+        session.setDefaultReadOnly(true);
+        try {
+            return fetch.get();
+        } finally {
+            session.setDefaultReadOnly(previous);
+        }
+    }
+
+    /**
+     * Fetches a chunk of ids in one query, the chunks are fetched one after the other since the
+     * {@link EntityManager} of the request cannot be shared between threads
+     *
+     * @param chunk  the ids to fetch
+     * @param found  receives the entities found by their {@link ReadOnlyService#idKey(Object)}
+     * @param loaded receives the entities found
+     */
+    private void fetchChunk(List<Id> chunk, Map<String, Entity> found, List<Entity> loaded) {
+        for (var entity : queryChunk(chunk)) {
+            found.put(idKey(extractId(entity)), entity);
+            loaded.add(entity);
+        }
+    }
+
+    /**
+     * Loads entities by their ids from the database, bypassing {@link ReadOnlyService#entityCache}, by chunks of
+     * {@link ReadOnlyService#idChunkSize}
+     *
+     * @param ids the ids to load
+     * @return the entities found by their {@link ReadOnlyService#idKey(Object)}
+     */
+    protected final Map<String, Entity> loadByIds(List<Id> ids) {
+        var found = new HashMap<String, Entity>(ids.size() * 2);
+        for (var i = 0; i < ids.size(); i += idChunkSize)
+            for (var entity : queryChunk(ids.subList(i, Math.min(i + idChunkSize, ids.size()))))
+                found.put(idKey(extractId(entity)), entity);
+        return found;
+    }
+
+    /**
+     * Queries a chunk of ids, simple ids use {@link JpaRepository#findAllById(Iterable)} and composite ids a row value
+     * predicate
+     * <p>
+     * The row value predicate is padded to the next power of two ids (up to {@link ReadOnlyService#idChunkSize}) by
+     * repeating the last id, so the chunks use a handful of distinct queries instead of one per chunk length, which
+     * would fill the query plan cache of Hibernate
+     *
+     * @param chunk the ids to query
+     * @return the entities found in no particular order
+     */
+    private List<Entity> queryChunk(List<Id> chunk) {
+        var composite = compositeId();
+        List<Entity> entities;
+        if (composite.queryPaths().length == 0)
+            entities = repository.findAllById(chunk);
+        else {
+            var fieldCount = composite.queryPaths().length;
+            var size = chunk.size() <= 1 ? chunk.size() :
+                    Math.min(idChunkSize, Integer.highestOneBit(chunk.size() - 1) << 1);
+            var typedQuery = em.createQuery(compositeQueries.computeIfAbsent(size, this::compositeQuery),
+                    entityClass);
+            for (var i = 0; i < size; i++) {
+                var values = composite.values(chunk.get(Math.min(i, chunk.size() - 1)));
+                for (var j = 0; j < fieldCount; j++)
+                    typedQuery.setParameter("p" + (i * fieldCount + j), values[j]);
+            }
+            entities = typedQuery.getResultList();
+        }
+        return entities;
+    }
+
+    /**
+     * Creates the query of a number of composite ids, <code>(a, b) in ((:p0, :p1), ...)</code>
+     *
+     * @param size the number of ids
+     * @return the JPQL query
+     */
+    private String compositeQuery(int size) {
+        var composite = compositeId();
+        var fieldCount = composite.queryPaths().length;
+        var query = new StringBuilder(64 + size * fieldCount * 8)
+                .append("select e from ")
+                .append(em.getMetamodel().entity(entityClass).getName())
+                .append(" e where (");
+        for (var i = 0; i < fieldCount; i++)
+            query.append(i == 0 ? "e." : ", e.").append(composite.queryPaths()[i]);
+        query.append(") in (");
+        for (var i = 0; i < size; i++) {
+            query.append(i == 0 ? "(" : ", (");
+            for (var j = 0; j < fieldCount; j++)
+                query.append(j == 0 ? ":p" : ", :p").append(i * fieldCount + j);
+            query.append(')');
+        }
+        return query.append(')').toString();
+    }
+
+    /**
+     * Creates the key of an entity in {@link ReadOnlyService#entityCache}, the entity class is part of the key since the
+     * cache can be shared
+     *
+     * @param idKey the key of the id from {@link ReadOnlyService#idKey(Object)}
+     * @return the key in the cache
+     */
+    private String cacheKey(String idKey) {
+        return entityClass.getName() + ':' + idKey;
+    }
+
+    /**
+     * Stores the state of loaded entities in {@link ReadOnlyService#entityCache}, unless an entity of the class was
+     * written since the load started or the load ran in a read-write transaction, which may see its own uncommitted
+     * writes, does nothing if the cache is disabled
+     *
+     * @param entities the entities loaded from the database, with the associations of {@link ServiceInfo#fetch()}
+     * @param version  the version of the entity class from {@link EntityChangeTracker} before the load
+     */
+    private void cacheCopies(List<Entity> entities, long version) {
+        if (entityCache == null || entities.isEmpty() || !readsCommittedData())
+            return;
+        var states = new ArrayList<byte[]>(entities.size());
+        for (var entity : entities)
+            states.add(stateOf(entity));
+        if (EntityChangeTracker.version(entityClass) != version)
+            return;
+        for (var i = 0; i < entities.size(); i++)
+            entityCache.put(cacheKey(idKey(extractId(entities.get(i)))), states.get(i));
+    }
+
+    /**
+     * Serializes an entity with the associations loaded, the result is never shared as an entity, so the callers and
+     * the {@link PostFetch} hooks cannot change the cached state
+     *
+     * @param entity the entity
+     * @return the serialized state
+     * @throws IllegalStateException if the entity or one of its loaded associations cannot be serialized
+     */
+    private byte[] stateOf(Entity entity) {
+        var out = new ByteArrayOutputStream();
+        try (var objects = new ObjectOutputStream(out)) {
+            objects.writeObject(Hibernate.unproxy(entity));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot cache " + entityClass.getSimpleName() + ": " + ex.getMessage(), ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Deserializes a state created by {@link ReadOnlyService#stateOf(Deletable)}
+     *
+     * @param state the serialized state
+     * @return a new detached copy, the associations not loaded when it was cached cannot be read
+     */
+    private Entity copyOf(byte[] state) {
+        try (var objects = new ConfigurableObjectInputStream(new ByteArrayInputStream(state),
+                entityClass.getClassLoader())) {
+            return entityClass.cast(objects.readObject());
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new IllegalStateException("Cannot read the cached " + entityClass.getSimpleName(), ex);
+        }
+    }
+
+    /**
+     * Removes an entity from {@link ReadOnlyService#entityCache} now and once the current transaction is committed,
+     * since a concurrent request may cache the previous state until then, does nothing if the cache is disabled
+     *
+     * @param id the id of the entity to remove
+     */
+    protected final void evictEntity(Id id) {
+        if (entityCache != null && id != null) {
+            var key = cacheKey(idKey(id));
+            entityCache.remove(key);
+            EntityChangeTracker.afterCommit(() -> entityCache.remove(key));
+        }
+    }
+
+    /**
+     * Creates a key of an id, equal for equal ids even when the id class doesn't implement equals
+     *
+     * @param id the id
+     * @return the key of the id
+     */
+    protected final String idKey(Object id) {
+        var composite = compositeId();
+        if (composite.queryPaths().length == 0)
+            return String.valueOf(id);
+        var key = new StringBuilder();
+        for (var value : composite.values(id))
+            key.append(value).append('\u0000');
+        return key.toString();
+    }
+
+    private CompositeId compositeId() {
+        var result = compositeId;
+        if (result == null) {
+            result = CompositeId.of(em.getMetamodel(), entityClass);
+            compositeId = result;
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the id of an entity
+     *
+     * @param e the entity to extract id from
+     * @return the id of the entity
+     */
+    protected Id extractId(Entity e) {
+        Assert.notNull(e, "entity to extract its id cannot be null");
+        return (Id) em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(e);
+    }
+
+    /**
+     * Converts the ids from a comma separated string, every id is made of {@link ReadOnlyService#idFieldCount()}
+     * parts
+     *
+     * @param idString the comma separated parts of the ids
+     * @return the ids in the order of the string
+     * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} if the ids cannot be parsed
+     */
+    public List<Id> convertStringToIds(String idString) {
+        var fieldCount = idFieldCount();
+        var ids = new ArrayList<Id>();
+        var parts = new String[fieldCount];
+        var part = 0;
+        var start = 0;
+        while (start <= idString.length()) {
+            var end = idString.indexOf(',', start);
+            if (end < 0)
+                end = idString.length();
+            parts[part++] = idString.substring(start, end);
+            if (part == fieldCount) {
+                ids.add(parseId(parts));
+                parts = new String[fieldCount];
+                part = 0;
+            }
+            start = end + 1;
+        }
+        if (part != 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad id");
+        return ids;
+    }
+
     public List<Id> convertStringToIds(String[] idString) {
+        if (idString.length % idFieldCount() != 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad id");
         List<Id> ids = new ArrayList<>();
         for (int i = 0; i < idString.length; i += idFieldCount()) {
-            var id = partsToIdClass(Arrays.copyOfRange(idString,
+            ids.add(parseId(Arrays.copyOfRange(idString,
                     i,
-                    i + idFieldCount()));
-            ids.add(id);
+                    i + idFieldCount())));
         }
         return ids;
     }
 
+    private Id parseId(String[] parts) {
+        try {
+            return partsToIdClass(parts);
+        } catch (IllegalArgumentException ex) {
+            //NumberFormatException included
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad id");
+        }
+    }
+
     /**
-     * loads hooks methods into the matching maps with the correct order
+     * loads hooks methods into the matching maps with the correct order, and binds them into
+     * {@link ReadOnlyService#hookChains}
      *
      * @throws DuplicateHookOrderException if a method with the same order exists in the same hook list
      */
@@ -450,6 +2003,7 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
         //TODO check methods 1 vs method 2
 //        var hookClasses = hooks.keySet();
         for (var hookClass : hookClasses) {
+            var compiledHooks = new ArrayList<CompiledHook>();
             var methods = searchForAnnotatedFunction(hookClass);
             if (methods != null && !methods.isEmpty())
                 for (var method : methods) {
@@ -464,6 +2018,7 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
                             throw new DuplicateHookOrderException(order);
                         }
                         hooks.get(hookClass).put(order, method);
+                        compiledHooks.add(CompiledHook.compile(method, order, hookAnnotation));
                     } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
                         logger.error("Cannot invoke value function in annotation {}, message{}",
                                 hookAnnotation.getClass().getSimpleName(), e.getMessage(), e);
@@ -494,6 +2049,8 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
 //                        continue;
 //                    }
                 }
+            compiledHooks.sort(Comparator.comparingInt(CompiledHook::getOrder));
+            hookChains.put(hookClass, compiledHooks.toArray(new CompiledHook[0]));
         }
     }
 
@@ -519,6 +2076,143 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
     protected abstract Integer idFieldCount();
 
 
+    /**
+     * The filters of a request after executing the {@link PreFetch} hooks
+     *
+     * @param filters          the filter names
+     * @param filterOperations the filter operations
+     * @param filterValues     the filter values
+     */
+    private record RequestFilters(String[] filters, String[] filterOperations, String[] filterValues) {
+    }
+
+    /**
+     * The filters of a request answered by the Hibernate Search index
+     *
+     * @param request the filters after executing the {@link PreFetch} hooks
+     * @param filters the resolved filters, their values are at the same index in the request
+     */
+    private record IndexFilters(RequestFilters request, List<SearchFilter<?, ?>> filters) {
+        /**
+         * @param f     the predicate factory of the query
+         * @param query the predicate of the query, null to match all the entities
+         * @return the predicate matching the query and all the filters
+         */
+        PredicateFinalStep where(SearchPredicateFactory f, PredicateFinalStep query) {
+            if (filters.isEmpty())
+                return query != null ? query : f.matchAll();
+            var bool = f.bool();
+            if (query != null)
+                bool.must(query);
+            for (var i = 0; i < filters.size(); i++)
+                bool.must(filters.get(i).toPredicate(f, request.filterValues()[i]));
+            return bool;
+        }
+    }
+
+    /**
+     * A facet of {@link ServiceInfo#facetFields()} or {@link ServiceInfo#facetRanges()}
+     *
+     * @param field  the index field
+     * @param type   the type of the values of the field
+     * @param ranges the buckets of a range facet, null for a facet by value
+     */
+    private record Facet(String field, Class<?> type, List<Range<Object>> ranges) {
+    }
+
+    /**
+     * The filters and the sort of a request resolved from their names, in the same order as the request
+     *
+     * @param filters the filters, their values are at the same index in the request
+     * @param sort    the sort or null if the request is not sorted
+     * @param <E>     the entity type
+     */
+    protected record QueryPlan<E>(List<Filter<E>> filters, Sort<E> sort) {
+    }
+
+    /**
+     * A count stored in {@link ReadOnlyService#countCache}
+     *
+     * @param version the version of the entity class from {@link EntityChangeTracker} when the count was made
+     * @param count   the count
+     */
+    protected record CachedCount(long version, Long count) {
+    }
+
+    /**
+     * The key of a request in {@link ReadOnlyService#resultCache}
+     *
+     * @param filters the filters after executing the {@link PreFetch} hooks from
+     *                {@link ReadOnlyService#filtersKey(RequestFilters)}
+     * @param sort    the lower case sort name
+     * @param start   the start of the pagination
+     * @param count   the count of the pagination
+     */
+    protected record ResultKey(List<String> filters, String sort, Long start, Long count) {
+    }
+
+    /**
+     * A result stored in {@link ReadOnlyService#resultCache} or {@link ReadOnlyService#autocompleteCache}
+     *
+     * @param version the version of the entity class from {@link EntityChangeTracker} when the result was fetched
+     * @param items   the items of the result, the ids of the entities for {@link ReadOnlyService#resultCache} and
+     *                {@link ReadOnlyService#autocompleteCache}
+     * @param <E>     the item type
+     */
+    protected record CachedResult<E>(long version, List<E> items) {
+    }
+
+    /**
+     * The key of a request in {@link ReadOnlyService#autocompleteCache}
+     *
+     * @param prefix  the trimmed lower case prefix
+     * @param count   the number of suggestions
+     * @param filters the filters after executing the {@link PreFetch} hooks from
+     *                {@link ReadOnlyService#filtersKey(RequestFilters)}
+     */
+    protected record AutocompleteKey(String prefix, int count, List<String> filters) {
+    }
+
+    /**
+     * The fields of a composite id, read from the JPA metamodel
+     *
+     * @param queryPaths   the paths of the fields in a query, empty when the id is not composite
+     * @param idProperties the matching properties of the id class
+     */
+    private record CompositeId(String[] queryPaths, String[] idProperties) {
+        static CompositeId of(Metamodel metamodel, Class<?> entityClass) {
+            var type = metamodel.entity(entityClass);
+            if (type.hasSingleIdAttribute()) {
+                var idAttribute = type.getId(type.getIdType().getJavaType());
+                if (idAttribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.EMBEDDED)
+                    return new CompositeId(new String[0], new String[0]);
+                //@EmbeddedId
+                var properties = metamodel.embeddable(idAttribute.getJavaType()).getAttributes().stream()
+                        .map(Attribute::getName)
+                        .sorted()
+                        .toArray(String[]::new);
+                var paths = Arrays.stream(properties)
+                        .map(property -> idAttribute.getName() + "." + property)
+                        .toArray(String[]::new);
+                return new CompositeId(paths, properties);
+            }
+            //@IdClass, the fields of the id class have the names of the id attributes
+            var properties = type.getIdClassAttributes().stream()
+                    .map(Attribute::getName)
+                    .sorted()
+                    .toArray(String[]::new);
+            return new CompositeId(properties, properties);
+        }
+
+        Object[] values(Object id) {
+            var accessor = PropertyAccessorFactory.forDirectFieldAccess(id);
+            var values = new Object[idProperties.length];
+            for (var i = 0; i < idProperties.length; i++)
+                values[i] = accessor.getPropertyValue(idProperties[i]);
+            return values;
+        }
+    }
+
     /**
      * Looks for annotated methods with a certain annotation in the class itself
      *
@@ -530,15 +2224,49 @@ public abstract class ReadOnlyService<Entity extends Deletable, Id> extends Logg
         return Arrays.stream(methods).filter(method -> method.isAnnotationPresent(annotationClass)).toList();
     }
 
+    /**
+     * Returns the statistics of the caches used by this service
+     *
+     * @return map with key being the name of the cache and the value its hits, misses and size
+     */
+    public Map<String, Map<String, Long>> cacheStatistics() {
+        var result = new LinkedHashMap<String, Map<String, Long>>();
+        addCacheStatistics(result, "count", countCache);
+        addCacheStatistics(result, "entity", entityCache);
+        addCacheStatistics(result, "result", resultCache);
+        addCacheStatistics(result, "autocomplete", autocompleteCache);
+        return result;
+    }
+
+    private static void addCacheStatistics(Map<String, Map<String, Long>> result, String name, LruCache<?, ?> cache) {
+        if (cache != null)
+            result.put(name, Map.of("hits", cache.getHits(),
+                    "misses", cache.getMisses(),
+                    "size", (long) cache.size()));
+    }
+
     /**
      * This function is used to get an entity by its id
+     * <p>
+     * When {@link ServiceInfo#cache()} is enabled the associations of {@link ServiceInfo#fetch()} are loaded and a
+     * cached entity is returned as a new detached copy
      *
      * @param id the id of the entity
      * @return the entity
      * @throws EntityNotFoundException if the entity doesn't exist
      */
     public Entity getById(Id id) {
-        return repository.findById(id).orElseThrow(EntityNotFoundException::new);
+        if (entityCache == null)
+            return repository.findById(id).orElseThrow(EntityNotFoundException::new);
+        var cached = (byte[]) entityCache.get(cacheKey(idKey(id)));
+        if (cached != null)
+            return copyOf(cached);
+        var version = EntityChangeTracker.version(entityClass);
+        var entity = repository.findById(id).orElseThrow(EntityNotFoundException::new);
+        //the copies of the cache are detached, they must hold the associations of the fetch plan
+        applyFetchPlan(List.of(entity));
+        cacheCopies(List.of(entity), version);
+        return entity;
     }
 
 }
@@ -0,0 +1,163 @@
+package io.ossnass.advSpring;
+
+import io.github.classgraph.ClassGraph;
+import io.ossnass.advSpring.annotations.FilterInfo;
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import io.ossnass.advSpring.annotations.SortInfo;
+import io.ossnass.advSpring.processor.RegistryIndexProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Should not be used by the end user, the classes annotated with {@link FilterInfo}, {@link SortInfo} and
+ * {@link ServiceInfo} found on the class path
+ * <p>
+ * Used by {@link FilterAndSortInfoService} at startup and by {@link AdvSpringRuntimeHints} at build time
+ *
+ * @param filters  the filter classes
+ * @param sorts    the sort classes
+ * @param services the service classes
+ */
+public record RegistryClasses(List<Class<?>> filters, List<Class<?>> sorts, List<Class<?>> services) {
+    private static final Logger logger = LoggerFactory.getLogger(RegistryClasses.class);
+
+    /**
+     * Loads the classes from the index written at build time by {@link RegistryIndexProcessor}, the class path roots
+     * (jars and directories) holding the requested packages without an index, like an application compiled without the
+     * processor next to an indexed library, are scanned instead and the results are merged
+     *
+     * @param classLoader the class loader to read the index and load the classes with
+     * @param packages    the packages of the filters, sorts and services, all the packages if null or empty
+     * @return the classes found
+     */
+    public static RegistryClasses load(ClassLoader classLoader, String[] packages) {
+        var acceptedPackages = packages == null ? new String[0] : Arrays.stream(packages)
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toArray(String[]::new);
+        var filterClasses = new LinkedHashSet<Class<?>>();
+        var sortClasses = new LinkedHashSet<Class<?>>();
+        var serviceClasses = new LinkedHashSet<Class<?>>();
+        var indexedRoots = new HashSet<String>();
+        readIndex(classLoader, RegistryIndexProcessor.FILTERS_INDEX, filterClasses, indexedRoots);
+        readIndex(classLoader, RegistryIndexProcessor.SORTS_INDEX, sortClasses, indexedRoots);
+        readIndex(classLoader, RegistryIndexProcessor.SERVICES_INDEX, serviceClasses, indexedRoots);
+        if (!indexedRoots.isEmpty())
+            logger.info("Using the filters and sorts index of {} class path roots", indexedRoots.size());
+        var unindexedPackages = unindexedPackages(classLoader, acceptedPackages, indexedRoots);
+        if (unindexedPackages != null)
+            scan(unindexedPackages, filterClasses, sortClasses, serviceClasses);
+        return new RegistryClasses(List.copyOf(filterClasses), List.copyOf(sortClasses), List.copyOf(serviceClasses));
+    }
+
+    /**
+     * Finds the packages to scan, the ones found in a class path root without an index
+     *
+     * @param classLoader      the class loader of the class path
+     * @param acceptedPackages the requested packages, all the packages if empty
+     * @param indexedRoots     the class path roots having an index
+     * @return the packages to scan, empty to scan all the packages, null if the index covers all of them
+     */
+    private static String[] unindexedPackages(ClassLoader classLoader, String[] acceptedPackages,
+                                              Set<String> indexedRoots) {
+        if (indexedRoots.isEmpty())
+            return acceptedPackages;
+        try {
+            if (acceptedPackages.length == 0) {
+                //the directories of the class path, where the classes of the application are
+                var roots = classLoader.getResources("");
+                while (roots.hasMoreElements())
+                    if (!indexedRoots.contains(roots.nextElement().toString()))
+                        return acceptedPackages;
+                return null;
+            }
+            var result = new ArrayList<String>();
+            for (var acceptedPackage : acceptedPackages) {
+                var path = acceptedPackage.replace('.', '/') + "/";
+                var locations = classLoader.getResources(path);
+                while (locations.hasMoreElements()) {
+                    var location = locations.nextElement().toString();
+                    if (!location.endsWith(path) ||
+                            !indexedRoots.contains(location.substring(0, location.length() - path.length()))) {
+                        result.add(acceptedPackage);
+                        break;
+                    }
+                }
+            }
+            return result.isEmpty() ? null : result.toArray(String[]::new);
+        } catch (IOException ex) {
+            logger.error("Cannot list the class path, message {}", ex.getMessage());
+            return acceptedPackages;
+        }
+    }
+
+    /**
+     * Reads an index from all the jars and directories of the class path
+     *
+     * @param classLoader  the class loader to read the index and load the classes with
+     * @param index        the location of the index
+     * @param classes      receives the indexed classes
+     * @param indexedRoots receives the class path roots having the index
+     */
+    private static void readIndex(ClassLoader classLoader, String index, Set<Class<?>> classes,
+                                  Set<String> indexedRoots) {
+        Enumeration<URL> resources;
+        try {
+            resources = classLoader.getResources(index);
+        } catch (IOException ex) {
+            logger.error("Cannot read the index {}, message {}", index, ex.getMessage());
+            return;
+        }
+        while (resources.hasMoreElements()) {
+            var url = resources.nextElement();
+            var location = url.toString();
+            indexedRoots.add(location.substring(0, location.length() - index.length()));
+            try (var reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#"))
+                        continue;
+                    try {
+                        classes.add(Class.forName(line, false, classLoader));
+                    } catch (ClassNotFoundException | LinkageError ex) {
+                        //left from a previous incremental build
+                        logger.debug("Skipping the missing class {} of the index {}", line, index);
+                    }
+                }
+            } catch (IOException ex) {
+                logger.error("Cannot read the index {}, message {}", url, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Scans the class path once for filters, sorts and services, used for the packages without an index
+     *
+     * @param packages       the packages to scan, all the packages if empty
+     * @param filterClasses  receives the filters found
+     * @param sortClasses    receives the sorts found
+     * @param serviceClasses receives the services found
+     */
+    private static void scan(String[] packages, Set<Class<?>> filterClasses, Set<Class<?>> sortClasses,
+                             Set<Class<?>> serviceClasses) {
+        logger.info("Scanning for filters, sorts and services in {}",
+                packages.length == 0 ? "all the packages" : String.join(", ", packages));
+        var classGraph = new ClassGraph().enableClassInfo()
+                .enableAnnotationInfo();
+        if (packages.length > 0)
+            classGraph.acceptPackages(packages);
+        try (var scan = classGraph.scan()) {
+            filterClasses.addAll(scan.getClassesWithAnnotation(FilterInfo.class).loadClasses());
+            sortClasses.addAll(scan.getClassesWithAnnotation(SortInfo.class).loadClasses());
+            serviceClasses.addAll(scan.getClassesWithAnnotation(ServiceInfo.class).loadClasses());
+        }
+        logger.info("Scanning completed");
+    }
+}
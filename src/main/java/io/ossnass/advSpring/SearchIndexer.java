@@ -0,0 +1,280 @@
+package io.ossnass.advSpring;
+
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.pojo.massindexing.MassIndexingMonitor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rebuilds the Hibernate Search index of the entities of the services in the background, with the mass indexer of
+ * Hibernate Search
+ * <p>
+ * A full reindex purges the index of the entity then indexes all its rows, the searches miss the entities not indexed
+ * yet until it completes. An incremental reindex only indexes the rows modified since a time, using
+ * {@link ServiceInfo#modifiedField()}, without purging, so it can run after a deploy while serving the searches. The
+ * rows deleted outside of {@link CRUDService} are not removed by an incremental reindex.
+ * <p>
+ * The mass indexer is configured by:
+ * <ul>
+ *     <li><code>advspring.indexing.threads</code>: the number of threads loading the entities, 4 by default</li>
+ *     <li><code>advspring.indexing.batch-size</code>: the number of entities loaded per query, 50 by default</li>
+ *     <li><code>advspring.indexing.fetch-size</code>: the JDBC fetch size when scrolling the ids, 1000 by default</li>
+ * </ul>
+ * The progress of the runs is reported by {@link AdvSpringEndpoint}
+ */
+@Component
+public class SearchIndexer extends Loggable {
+    private final EntityManagerFactory entityManagerFactory;
+    private final Map<String, ServiceInfo> services = new TreeMap<>();
+    private final int threads;
+    private final int batchSize;
+    private final int fetchSize;
+    /**
+     * The last run of every service, by the id of the service
+     */
+    private final Map<String, IndexingRun> runs = new ConcurrentHashMap<>();
+
+    public SearchIndexer(EntityManagerFactory entityManagerFactory,
+                         List<ReadOnlyService<?, ?>> services,
+                         @Value("${advspring.indexing.threads:4}") int threads,
+                         @Value("${advspring.indexing.batch-size:50}") int batchSize,
+                         @Value("${advspring.indexing.fetch-size:1000}") int fetchSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+        var mapping = Search.mapping(entityManagerFactory);
+        var indexed = new HashSet<Class<?>>();
+        mapping.allIndexedEntities().forEach(entity -> indexed.add(entity.javaClass()));
+        for (var service : services) {
+            var serviceInfo = service.getClass().getAnnotation(ServiceInfo.class);
+            if (serviceInfo != null && indexed.contains(serviceInfo.entityClass()))
+                this.services.put(serviceInfo.id(), serviceInfo);
+        }
+    }
+
+    /**
+     * @return the ids of the services whose entity is indexed
+     */
+    public Set<String> services() {
+        return Collections.unmodifiableSet(services.keySet());
+    }
+
+    /**
+     * Starts reindexing the entity of a service in the background, a service is reindexed by one run at a time
+     *
+     * @param serviceId the id of the service
+     * @param since     null for a full reindex, or the time since which the modified rows are reindexed, as an ISO
+     *                  instant (<code>2024-05-01T10:00:00Z</code>), local date time or local date in the zone of the
+     *                  server
+     * @return the started run, or the current one when the service is already being reindexed
+     * @throws IllegalArgumentException if the service doesn't exist or its entity isn't indexed, the time is malformed,
+     *                                  or the service has no {@link ServiceInfo#modifiedField()} for an incremental
+     *                                  reindex
+     */
+    public IndexingRun reindex(String serviceId, String since) {
+        var serviceInfo = services.get(serviceId);
+        if (serviceInfo == null)
+            throw new IllegalArgumentException("No indexed service " + serviceId);
+        var sinceInstant = since != null && !since.isBlank() ? parseSince(since.trim()) : null;
+        Object sinceValue = null;
+        if (sinceInstant != null) {
+            if (serviceInfo.modifiedField().isEmpty())
+                throw new IllegalArgumentException("Service %s has no modified field".formatted(serviceId));
+            sinceValue = toFieldValue(serviceInfo, sinceInstant);
+        }
+        var run = new IndexingRun(sinceInstant);
+        var current = runs.compute(serviceId, (id, last) -> last != null && last.isRunning() ? last : run);
+        if (current != run)
+            return current;
+        try {
+            var massIndexer = Search.mapping(entityManagerFactory).scope(serviceInfo.entityClass()).massIndexer()
+                    .threadsToLoadObjects(threads)
+                    .batchSizeToLoadObjects(batchSize)
+                    .idFetchSize(fetchSize)
+                    .monitor(run);
+            if (sinceValue != null) {
+                massIndexer.purgeAllOnStart(false);
+                massIndexer.type(serviceInfo.entityClass())
+                        .reindexOnly("e.%s >= :since".formatted(serviceInfo.modifiedField()))
+                        .param("since", sinceValue);
+            }
+            logger.info("Reindexing {} {}", serviceId, sinceInstant != null ? "since " + sinceInstant : "fully");
+            massIndexer.start().whenComplete((result, ex) -> {
+                run.finish(ex);
+                if (ex != null)
+                    logger.error("Reindexing {} failed, message {}", serviceId, ex.getMessage(), ex);
+                else
+                    logger.info("Reindexed {} documents of {} in {} ms", run.documentsAdded.sum(), serviceId,
+                            run.elapsedMillis());
+            });
+        } catch (RuntimeException ex) {
+            run.finish(ex);
+            throw ex;
+        }
+        return run;
+    }
+
+    /**
+     * @return the progress of the last run of every service, by the id of the service
+     */
+    public Map<String, Map<String, Object>> statistics() {
+        var result = new TreeMap<String, Map<String, Object>>();
+        runs.forEach((id, run) -> result.put(id, run.report()));
+        return result;
+    }
+
+    private static Instant parseSince(String since) {
+        try {
+            return Instant.parse(since);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDateTime.parse(since).atZone(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDate.parse(since).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Bad since " + since, ex);
+        }
+    }
+
+    /**
+     * Converts the time to the type of the {@link ServiceInfo#modifiedField()} of the entity
+     */
+    private Object toFieldValue(ServiceInfo serviceInfo, Instant since) {
+        Class<?> type;
+        try {
+            type = entityManagerFactory.getMetamodel().entity(serviceInfo.entityClass())
+                    .getAttribute(serviceInfo.modifiedField()).getJavaType();
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("Modified field %s of %s doesn't exist".formatted(
+                    serviceInfo.modifiedField(), serviceInfo.id()), ex);
+        }
+        var zone = ZoneId.systemDefault();
+        if (type == Instant.class)
+            return since;
+        if (type == LocalDateTime.class)
+            return LocalDateTime.ofInstant(since, zone);
+        if (type == OffsetDateTime.class)
+            return OffsetDateTime.ofInstant(since, zone);
+        if (type == ZonedDateTime.class)
+            return since.atZone(zone);
+        if (type == LocalDate.class)
+            return LocalDate.ofInstant(since, zone);
+        if (type == Timestamp.class)
+            return Timestamp.from(since);
+        if (type == Date.class)
+            return Date.from(since);
+        if (type == Long.class || type == long.class)
+            return since.toEpochMilli();
+        throw new IllegalStateException("Modified field %s of %s has the unsupported type %s".formatted(
+                serviceInfo.modifiedField(), serviceInfo.id(), type.getSimpleName()));
+    }
+
+    /**
+     * A reindex of the entity of a service, counts the progress reported by the mass indexer
+     */
+    public static final class IndexingRun implements MassIndexingMonitor {
+        private final Instant since;
+        private final Instant startedAt = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final LongAdder total = new LongAdder();
+        private final LongAdder entitiesLoaded = new LongAdder();
+        private final LongAdder documentsBuilt = new LongAdder();
+        private final LongAdder documentsAdded = new LongAdder();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private volatile long endNanos;
+        private volatile String error;
+
+        private IndexingRun(Instant since) {
+            this.since = since;
+        }
+
+        @Override
+        public void documentsAdded(long increment) {
+            documentsAdded.add(increment);
+        }
+
+        @Override
+        public void documentsBuilt(long increment) {
+            documentsBuilt.add(increment);
+        }
+
+        @Override
+        public void entitiesLoaded(long increment) {
+            entitiesLoaded.add(increment);
+        }
+
+        @Override
+        public void addToTotalCount(long increment) {
+            total.add(increment);
+        }
+
+        @Override
+        public void indexingCompleted() {
+        }
+
+        private void finish(Throwable ex) {
+            endNanos = System.nanoTime();
+            if (ex != null) {
+                error = ex.getMessage();
+                completion.completeExceptionally(ex);
+            } else
+                completion.complete(null);
+        }
+
+        /**
+         * @return true until the mass indexer completes or fails
+         */
+        public boolean isRunning() {
+            return !completion.isDone();
+        }
+
+        /**
+         * @return completes with the run, exceptionally when the mass indexer fails
+         */
+        public CompletableFuture<Void> completion() {
+            return completion;
+        }
+
+        private long elapsedMillis() {
+            return ((isRunning() ? System.nanoTime() : endNanos) - startNanos) / 1_000_000;
+        }
+
+        /**
+         * @return the status (running, completed or failed), the since time of an incremental run, the start time,
+         * the number of entities to index, loaded, built and added to the index, the percentage of the entities added,
+         * the elapsed time, the documents added per second and the error of a failed run
+         */
+        public Map<String, Object> report() {
+            var result = new LinkedHashMap<String, Object>();
+            var elapsedMillis = elapsedMillis();
+            var added = documentsAdded.sum();
+            var expected = total.sum();
+            result.put("status", isRunning() ? "running" : error == null ? "completed" : "failed");
+            result.put("since", since);
+            result.put("startedAt", startedAt);
+            result.put("total", expected);
+            result.put("entitiesLoaded", entitiesLoaded.sum());
+            result.put("documentsBuilt", documentsBuilt.sum());
+            result.put("documentsAdded", added);
+            result.put("progress", expected > 0 ? Math.min(100.0, added * 100.0 / expected) : isRunning() ? 0.0 : 100.0);
+            result.put("elapsedMillis", elapsedMillis);
+            result.put("documentsPerSecond", elapsedMillis > 0 ? added * 1000.0 / elapsedMillis : 0.0);
+            result.put("error", error);
+            return result;
+        }
+    }
+}
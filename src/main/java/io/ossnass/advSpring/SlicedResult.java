@@ -0,0 +1,14 @@
+package io.ossnass.advSpring;
+
+import java.util.List;
+
+/**
+ * A page of items that tells whether more items exist after it without counting them, returned by
+ * {@link ReadOnlyService#slice(String[], String[], String[], Long, Long, String)}
+ *
+ * @param items   the items of the page
+ * @param hasMore true if there are more items after this page
+ * @param <T>     the type of the items
+ */
+public record SlicedResult<T>(List<T> items, boolean hasMore) {
+}
@@ -0,0 +1,23 @@
+package io.ossnass.advSpring.annotations;
+
+/**
+ * What a batch of {@link io.ossnass.advSpring.CRUDService} does when one of its items fails, used by
+ * {@link ServiceInfo#batchFailureMode()}
+ */
+public enum BatchFailureMode {
+    /**
+     * The whole batch is rolled back and the error of the item is returned
+     */
+    ROLLBACK,
+    /**
+     * The failing items are skipped and reported in the result, the other items are saved
+     * <p>
+     * Only the errors raised before writing the item (not found, already exists, pre hooks) and by the post hooks
+     * are skipped, an item whose post hook fails is still saved
+     * <p>
+     * The items are not written under savepoints, a group is sent in JDBC batches and Hibernate cannot use its session
+     * after a failed flush, so an error of the database when writing (a constraint, a duplicate key in
+     * {@link WriteMode#LEAN} mode) rolls back the whole batch as in {@link BatchFailureMode#ROLLBACK} mode
+     */
+    SKIP
+}
@@ -0,0 +1,52 @@
+package io.ossnass.advSpring.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Configures an in-memory cache of a service, used by {@link ServiceInfo#cache()}
+ * <p>
+ * It contains 4 optional data inputs:
+ * <ol>
+ *     <li>the {@link CacheInfo#size()} the maximum number of entries, 0 disables the cache</li>
+ *     <li>the {@link CacheInfo#ttlSeconds()} how long an entry stays valid</li>
+ *     <li>the {@link CacheInfo#region()} allowing several services to share the same cache</li>
+ *     <li>the {@link CacheInfo#maxWeight()} the maximum total weight of the entries</li>
+ * </ol>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface CacheInfo {
+    /**
+     * The maximum number of entries, the least recently used entry is evicted when exceeded
+     *
+     * @return the size of the cache, 0 (the default) to disable it
+     */
+    int size() default 0;
+
+    /**
+     * The time an entry stays valid after it is stored, limits how long a change made outside the service stays
+     * invisible
+     *
+     * @return the time to live in seconds, 0 (the default) to never expire
+     */
+    long ttlSeconds() default 0;
+
+    /**
+     * The name of the cache, services using the same region share the same cache, the size and time to live of the
+     * first service created are used
+     *
+     * @return the name of the cache, empty (the default) to use the id of the service
+     */
+    String region() default "";
+
+    /**
+     * The maximum total weight of the entries, the least recently used entries are evicted when exceeded, the weight of
+     * an entry is defined by the cache using it, for {@link ServiceInfo#resultCache()} it is the number of ids
+     *
+     * @return the maximum total weight, 0 (the default) for no limit
+     */
+    long maxWeight() default 0;
+}
@@ -24,6 +24,7 @@ import java.lang.annotation.Target;
  *             default</li>
  *         </ul>
  *     </li>
+ *     <li>the conditional GET support using {@link ControllerInfo#etag()} and {@link ControllerInfo#etagDependsOn()}</li>
  * </ol>
  */
 @Retention(RetentionPolicy.RUNTIME)
@@ -58,6 +59,26 @@ public @interface ControllerInfo {
      */
     boolean disableDelete() default false;
 
+    /**
+     * true to answer the read endpoints with a weak ETag and with 304 (Not Modified) when the If-None-Match header
+     * matches, without querying the database
+     * <p>
+     * The ETag changes with every add, edit and delete done through {@link io.ossnass.advSpring.CRUDService} on the
+     * entity class of the service and on the classes of {@link ControllerInfo#etagDependsOn()}, only enable it when
+     * all the writes go through it
+     *
+     * @return the status of the ETag
+     */
+    boolean etag() default false;
+
+    /**
+     * The other entity classes whose changes must change the ETag, for example the classes of the associations
+     * included in the DTO
+     *
+     * @return the entity classes the DTO depends on
+     */
+    Class<?>[] etagDependsOn() default {};
+
 //    /**
 //     * true to disable soft delete, false to enable
 //     *
@@ -0,0 +1,29 @@
+package io.ossnass.advSpring.annotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a range facet of a service, used by {@link ServiceInfo#facetRanges()}
+ * <p>
+ * The boundaries split the values in buckets, each including its lower boundary and excluding its upper boundary, for
+ * example the boundaries 100 and 300 give the buckets (*,100), [100,300) and [300,*)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface FacetRange {
+    /**
+     * The field of the Hibernate Search index, it must be aggregable
+     *
+     * @return the index field
+     */
+    String field();
+
+    /**
+     * The boundaries of the buckets in ascending order, written as the values of the field (numbers, ISO dates)
+     *
+     * @return the boundaries
+     */
+    String[] boundaries();
+}
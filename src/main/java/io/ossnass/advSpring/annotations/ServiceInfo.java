@@ -14,6 +14,17 @@ import java.lang.annotation.Target;
  *      methods using
  *      {@link FilterInfo} and {@link  SortInfo}</li>
  *      <li>entityClass: the entity class used by the services</li>
+ *      <li>countCacheSize: the size of the count cache</li>
+ *      <li>idChunkSize: the maximum number of ids per query when fetching by ids</li>
+ *      <li>cache: the entity cache used when fetching by ids</li>
+ *      <li>resultCache: the cache of the results of the listing</li>
+ *      <li>fetch: the associations loaded with the entities</li>
+ *      <li>batchSize and batchFailureMode: how batches of add, edit and delete are written</li>
+ *      <li>writeMode: how a single add, edit and delete is written</li>
+ *      <li>searchFields: the index fields of the full text search</li>
+ *      <li>autocompleteFields and autocompleteCache: the index fields and the cache of the autocomplete</li>
+ *      <li>facetFields and facetRanges: the facets counted by the index</li>
+ *      <li>modifiedField: the last modification time of the entities, used by the incremental reindex</li>
  *      </ol>
  */
 @Retention(RetentionPolicy.RUNTIME)
@@ -34,4 +45,156 @@ public @interface ServiceInfo {
      * @return the entity class of the service
      */
     Class<?> entityClass();
+
+    /**
+     * The maximum number of results of {@link io.ossnass.advSpring.ReadOnlyService#count(String[], String[], String[])}
+     * kept in memory, the results are invalidated by any add, edit or delete done through
+     * {@link io.ossnass.advSpring.CRUDService} on the same entity class
+     * <p>
+     * Only enable it when all the writes to the table go through {@link io.ossnass.advSpring.CRUDService}
+     *
+     * @return the size of the count cache, 0 (the default) to disable it
+     */
+    int countCacheSize() default 0;
+
+    /**
+     * The maximum number of ids sent in one query by {@link io.ossnass.advSpring.ReadOnlyService#getOnes(String)},
+     * longer lists are split into several queries
+     * <p>
+     * Keeps the IN list under the limits of the database (1000 items in Oracle, 2100 parameters in SQL Server), for
+     * composite ids every id uses one parameter per field
+     *
+     * @return the maximum number of ids per query
+     */
+    int idChunkSize() default 500;
+
+    /**
+     * The cache of the entities fetched by {@link io.ossnass.advSpring.ReadOnlyService#getById(Object)} and
+     * {@link io.ossnass.advSpring.ReadOnlyService#getOnes(String)}, entries are evicted by the add, edit and delete done
+     * through {@link io.ossnass.advSpring.CRUDService} once committed
+     * <p>
+     * The cache holds the serialized state of the entities, with the associations of {@link ServiceInfo#fetch()}, and
+     * every hit returns a new detached copy, so the entities must be serializable. The other associations cannot be
+     * read from a copy, only enable it for entities whose mapper reads the fetched associations, like reference data
+     *
+     * @return the configuration of the entity cache, disabled by default
+     */
+    CacheInfo cache() default @CacheInfo;
+
+    /**
+     * The cache of the results of {@link io.ossnass.advSpring.ReadOnlyService#all(String[], String[], String[], Long, Long, String)}
+     * keyed by the request after executing the {@link io.ossnass.advSpring.annotations.hooks.PreFetch} hooks, so the
+     * filters added by the hooks are part of the key, the results are invalidated by any add, edit or delete done
+     * through {@link io.ossnass.advSpring.CRUDService} on the same entity class
+     * <p>
+     * The {@link CacheInfo#region()} is ignored, every service has its own result cache, the
+     * {@link io.ossnass.advSpring.annotations.hooks.PostFetch} hooks are still executed on every request
+     * <p>
+     * Only the ids of the results are cached, every request loads the entities by id in its own persistence context,
+     * one query per {@link ServiceInfo#idChunkSize()} ids instead of the filtered and sorted query. The writes
+     * invalidate the results once committed, the reads in a read-write transaction bypass the cache
+     *
+     * @return the configuration of the result cache, disabled by default
+     */
+    CacheInfo resultCache() default @CacheInfo;
+
+    /**
+     * The association paths loaded together with the entities, like <code>authors.author</code>, so mapping the
+     * entities to DTOs doesn't issue one query per entity and association (N+1)
+     * <p>
+     * After a list of entities is fetched, every path is loaded for the whole list by one join fetch query, the paths
+     * are not joined to the main query so the pagination still happens in the database
+     *
+     * @return the association paths, dot separated, none by default
+     */
+    String[] fetch() default {};
+
+    /**
+     * The number of items of a batch add, edit or delete of {@link io.ossnass.advSpring.CRUDService} written together,
+     * used as the JDBC batch size, the persistence context is flushed and cleared after every group
+     * <p>
+     * Inserts are only batched when the ids are not generated by IDENTITY columns, use a pooled sequence instead
+     *
+     * @return the number of items written together
+     */
+    int batchSize() default 50;
+
+    /**
+     * What a batch does when one of its items fails
+     *
+     * @return the failure mode, {@link BatchFailureMode#ROLLBACK} by default
+     */
+    BatchFailureMode batchFailureMode() default BatchFailureMode.ROLLBACK;
+
+    /**
+     * How a single add, edit or delete of {@link io.ossnass.advSpring.CRUDService} is written
+     *
+     * @return the write mode, {@link WriteMode#SAFE} by default
+     */
+    WriteMode writeMode() default WriteMode.SAFE;
+
+    /**
+     * The fields of the Hibernate Search index searched by
+     * {@link io.ossnass.advSpring.ReadOnlyService#search(String, Long, Long)}, the entity class must be
+     * {@link org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed}
+     * <p>
+     * The mandatory filters of the service are required by the search too, they must be
+     * {@link io.ossnass.advSpring.operators.SearchFilter}s so the index applies them with the query
+     *
+     * @return the index fields, none by default meaning the search is disabled
+     */
+    String[] searchFields() default {};
+
+    /**
+     * The fields of the Hibernate Search index searched by
+     * {@link io.ossnass.advSpring.ReadOnlyService#autocomplete(String, Integer)}, they must be indexed with the
+     * analyzers of {@link io.ossnass.advSpring.AdvSpringAnalysisConfigurer}, for example:
+     * <code>
+     * &#64;FullTextField(name = "title_autocomplete", analyzer = AdvSpringAnalysisConfigurer.AUTOCOMPLETE_INDEXING,
+     * searchAnalyzer = AdvSpringAnalysisConfigurer.AUTOCOMPLETE_SEARCH)
+     * </code>
+     * <p>
+     * Like {@link ServiceInfo#searchFields()} the mandatory filters must be
+     * {@link io.ossnass.advSpring.operators.SearchFilter}s
+     *
+     * @return the index fields, none by default meaning the autocomplete is disabled
+     */
+    String[] autocompleteFields() default {};
+
+    /**
+     * The cache of the ids of the autocomplete results by prefix, count and filters, the results are invalidated by any
+     * add, edit or delete done through {@link io.ossnass.advSpring.CRUDService} on the same entity class, the
+     * {@link CacheInfo#region()} is ignored
+     *
+     * @return the configuration of the autocomplete cache, 1000 prefixes for 60 seconds by default
+     */
+    CacheInfo autocompleteCache() default @CacheInfo(size = 1000, ttlSeconds = 60);
+
+    /**
+     * The fields of the Hibernate Search index counted by value by
+     * {@link io.ossnass.advSpring.ReadOnlyService#facets(String[], String[], String[], String[])}, they must be
+     * aggregable, for example <code>&#64;KeywordField(name = "genre_facet", aggregable = Aggregable.YES)</code>
+     *
+     * @return the index fields, none by default
+     */
+    String[] facetFields() default {};
+
+    /**
+     * The fields of the Hibernate Search index counted by range by
+     * {@link io.ossnass.advSpring.ReadOnlyService#facets(String[], String[], String[], String[])}
+     *
+     * @return the range facets, none by default
+     */
+    FacetRange[] facetRanges() default {};
+
+    /**
+     * The entity property holding the last modification time of the rows, used by
+     * {@link io.ossnass.advSpring.SearchIndexer#reindex(String, String)} to reindex only the rows modified since a time,
+     * it must be set by every write to the table, for example with <code>&#64;UpdateTimestamp</code>
+     * <p>
+     * Supports the Java time types, {@link java.util.Date} and epoch milliseconds as {@link Long}
+     *
+     * @return the property, none by default meaning only full reindexes are possible
+     */
+    String modifiedField() default "";
 }
@@ -0,0 +1,24 @@
+package io.ossnass.advSpring.annotations;
+
+/**
+ * How {@link io.ossnass.advSpring.CRUDService} writes a single entity, used by {@link ServiceInfo#writeMode()}
+ */
+public enum WriteMode {
+    /**
+     * The existence of the entity is checked before adding, every write is flushed and the entity is read again from
+     * the database before being returned
+     */
+    SAFE,
+    /**
+     * The add, edit and delete, along with their hooks, run in one transaction flushed on commit:
+     * <ul>
+     *     <li>add persists the entity without checking its existence, a constraint violation on commit is reported as
+     *     {@link jakarta.persistence.EntityExistsException}</li>
+     *     <li>edit and delete load the entity once</li>
+     *     <li>the managed entity is returned without reading it again, values set by the database (triggers,
+     *     defaults) are not refreshed</li>
+     * </ul>
+     * The post hooks run before the commit, inside the transaction
+     */
+    LEAN
+}
@@ -20,6 +20,8 @@ import java.lang.annotation.Target;
  * </code>
  * <p>
  * <p>
+ * Slow side effects can be moved out of the request using {@link PostAdd#async()}
+ * <p>
  * If you need to throw an exception, please use a class extending  {@link org.springframework.web.client.HttpStatusCodeException} or {@link org.springframework.web.server.ResponseStatusException} to pass the error to the client
  * The reason behind this structure is simple, sometimes we want to process data inside the entity post add/edit and
  * as a result it will be passed from functions annotated {@link PreAdd} with the same order as the current postAdd hook
@@ -34,4 +36,22 @@ public @interface PostAdd {
      * @return the order of execution of the function
      */
     int value() default 1;
+
+    /**
+     * true to run the function on {@link io.ossnass.advSpring.AsyncHookExecutor} once the add is committed, the
+     * request doesn't wait for it and its errors are logged instead of being passed to the client
+     * <p>
+     * The asynchronous functions of an entity run one after the other by their order, after all the synchronous ones
+     * and receive a copy of the entity holding its basic attributes, without its associations
+     *
+     * @return the status of the asynchronous execution
+     */
+    boolean async() default false;
+
+    /**
+     * The number of times an asynchronous function is called again when it fails, ignored when not asynchronous
+     *
+     * @return the number of retries
+     */
+    int retries() default 0;
 }
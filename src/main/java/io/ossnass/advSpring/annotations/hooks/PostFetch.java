@@ -22,6 +22,9 @@ import java.lang.annotation.Target;
  *     <li>items are the items fetched from the database</li>
  *     <li>isAll true when called from {@link io.ossnass.advSpring.ReadOnlyService#all(String[], String[], String[], Long, Long, String)} and false when calling from {@link io.ossnass.advSpring.ReadOnlyService#getOnes(String)}} </li>
  * </ul>
+ * <p>
+ * A function working on every item independently can be called on chunks of the items in parallel using
+ * {@link PostFetch#parallel()}
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
@@ -34,4 +37,33 @@ public @interface PostFetch {
      * @return the order of execution of the function
      */
     int value() default 1;
+
+    /**
+     * true to call the function in parallel, on virtual threads, on chunks of {@link PostFetch#chunkSize()} items, the
+     * returned lists are joined in the order of the chunks
+     * <p>
+     * Every function still completes before the next one starts. The function runs outside the request thread, so the
+     * items are detached from the persistence context of the request before they are split: reading an association not
+     * loaded by {@link io.ossnass.advSpring.annotations.ServiceInfo#fetch()} fails, in the function and in the mapper
+     * afterward, and the function must not use the request context. In a read-write transaction the items are not
+     * detached, since their pending changes would be lost, and the function is called on the request thread instead
+     *
+     * @return the status of the parallel execution
+     */
+    boolean parallel() default false;
+
+    /**
+     * The number of items per chunk when {@link PostFetch#parallel()} is enabled, smaller lists are not split
+     *
+     * @return the size of the chunks
+     */
+    int chunkSize() default 256;
+
+    /**
+     * The maximum number of chunks of the function running at the same time for one call when
+     * {@link PostFetch#parallel()} is enabled, the other chunks of the call wait for a running one to complete
+     *
+     * @return the number of chunks running at the same time
+     */
+    int maxConcurrency() default 8;
 }
@@ -49,7 +49,15 @@ public enum Operation {
     /**
      * date is after
      */
-    DATE_IS_AFTER("dateafter");
+    DATE_IS_AFTER("dateafter"),
+    /**
+     * full text match, used by {@link SearchFilter}
+     */
+    MATCHES("matches"),
+    /**
+     * contains the value, used by {@link SearchFilter}
+     */
+    CONTAINS("contains");
 
     private final String value;
 
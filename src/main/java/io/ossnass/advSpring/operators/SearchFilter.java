@@ -0,0 +1,199 @@
+package io.ossnass.advSpring.operators;
+
+import io.ossnass.advSpring.AdvSpringAnalysisConfigurer;
+import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.annotations.FilterInfo;
+import org.hibernate.search.engine.backend.metamodel.IndexFieldDescriptor;
+import org.hibernate.search.engine.search.predicate.SearchPredicate;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.jinq.jpa.JPAJinqStream;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * A filter running its predicate against the Hibernate Search index instead of the database
+ * <p>
+ * The matching ids are fetched from the index then applied to the stream as an id IN predicate, so the filter
+ * composes with the other filters, the sort and the pagination like any other filter
+ * <p>
+ * The predicate is built from the {@link FilterInfo} of the filter, where {@link FilterInfo#fieldName()} is the name of
+ * the index field:
+ * <ul>
+ *     <li>{@link Operation#MATCHES}: full text match of the analyzed value</li>
+ *     <li>{@link Operation#CONTAINS}: the value appears inside the field, case-insensitive, see below</li>
+ * </ul>
+ * A {@link Operation#CONTAINS} filter should use a field analyzed with
+ * {@link AdvSpringAnalysisConfigurer#CONTAINS_INDEXING} and {@link AdvSpringAnalysisConfigurer#CONTAINS_SEARCH}, the
+ * value is then matched against the indexed substrings of the field, spaces included, without scanning the terms of
+ * the index. The value must have at least {@link AdvSpringAnalysisConfigurer#MIN_CONTAINS_LENGTH} characters, and a
+ * value longer than {@link AdvSpringAnalysisConfigurer#MAX_CONTAINS_LENGTH} characters matches the entities having
+ * all its substrings of that length, which rarely matches an entity where they don't follow each other
+ * <p>
+ * On any other field the value is a wildcard query with a leading wildcard, it visits every term of the field, and
+ * since the terms are the words of an analyzed field, a value spanning several words (with a space) never matches
+ * Other predicates can be used by overriding {@link SearchFilter#predicate(SearchPredicateFactory, String)}
+ * <p>
+ * Search filters are also applied directly in the index by
+ * {@link io.ossnass.advSpring.ReadOnlyService#facets(String[], String[], String[], String[])}
+ * <p>
+ * Jinq cannot read the id of a generic entity, so the subclass applies the ids, for example:
+ * <code>
+ * protected JPAJinqStream&lt;Book&gt; whereIdIn(JPAJinqStream&lt;Book&gt; stream, List&lt;Integer&gt; ids) {
+ * return stream.where(item -&gt; JPQL.isInList(item.getId(), ids));
+ * }
+ * </code>
+ *
+ * @param <Entity> the entity applied to, must be annotated with
+ *                 {@link org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed}
+ * @param <ID>     the id of the entity
+ */
+public abstract class SearchFilter<Entity, ID> extends Filter<Entity> {
+    /**
+     * The default maximum number of matching ids, see {@link SearchFilter#maxHits()}
+     */
+    public static final int DEFAULT_MAX_HITS = 10000;
+    protected final Class<Entity> entityClass;
+    protected final Class<ID> idClass;
+    protected final String fieldName;
+    protected final Operation operation;
+    /**
+     * Whether {@link SearchFilter#fieldName} is analyzed with {@link AdvSpringAnalysisConfigurer#CONTAINS_INDEXING},
+     * resolved from the index metamodel on first use
+     */
+    private volatile Boolean substringField;
+
+    public SearchFilter(SearchSession searchSession, JinqStreamService streamService) {
+        super(searchSession, streamService);
+        var types = GenericTypeResolver.resolveTypeArguments(getClass(), SearchFilter.class);
+        Assert.notNull(types, "A search filter must declare its entity and id classes");
+        this.entityClass = (Class<Entity>) types[0];
+        this.idClass = (Class<ID>) types[1];
+        var filterInfo = getClass().getAnnotation(FilterInfo.class);
+        Assert.notNull(filterInfo, "A search filter must be annotated with FilterInfo");
+        this.fieldName = filterInfo.fieldName();
+        this.operation = filterInfo.operation();
+    }
+
+    @Override
+    public JPAJinqStream<Entity> addFilter(JPAJinqStream<Entity> stream, String value) {
+        return whereIdIn(stream, search(value));
+    }
+
+    /**
+     * Fetches the ids of the entities matching the value from the index
+     *
+     * @param value the filter value
+     * @return the matching ids
+     * @throws ResponseStatusException with code 400 and message "Bad filter" when the value is empty or matches more
+     *                                 than {@link SearchFilter#maxHits()} entities
+     */
+    protected List<ID> search(String value) {
+        var maxHits = maxHits();
+        var ids = searchSession.search(entityClass)
+                .select(f -> f.id(idClass))
+                .where(f -> toPredicate(f, value))
+                .fetchHits(maxHits + 1);
+        if (ids.size() > maxHits)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad filter");
+        return ids;
+    }
+
+    /**
+     * Builds the predicate of the filter value, to be run against the index of the entity
+     *
+     * @param f     the predicate factory
+     * @param value the filter value
+     * @return the predicate
+     * @throws ResponseStatusException with code 400 and message "Bad filter" when the value is empty
+     */
+    public final SearchPredicate toPredicate(SearchPredicateFactory f, String value) {
+        if (value == null || value.isBlank())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad filter");
+        return predicate(f, value);
+    }
+
+    /**
+     * Builds the predicate run against the index
+     *
+     * @param f     the predicate factory
+     * @param value the filter value, not blank
+     * @return the predicate
+     */
+    protected SearchPredicate predicate(SearchPredicateFactory f, String value) {
+        return switch (operation) {
+            case MATCHES -> f.match().field(fieldName).matching(value).toPredicate();
+            case CONTAINS -> isSubstringField() ? containsSubstring(f, value) : f.wildcard().field(fieldName)
+                    .matching("*" + value.toLowerCase().replace("\\", "\\\\").replace("*", "\\*")
+                            .replace("?", "\\?") + "*")
+                    .toPredicate();
+            default -> throw new IllegalStateException(
+                    "Search filter %s doesn't support %s".formatted(getClass().getSimpleName(), operation));
+        };
+    }
+
+    /**
+     * Matches the value against the substrings indexed by {@link AdvSpringAnalysisConfigurer#CONTAINS_INDEXING}, a long
+     * value by all its substrings of {@link AdvSpringAnalysisConfigurer#MAX_CONTAINS_LENGTH} characters, ending with
+     * its last one
+     *
+     * @param f     the predicate factory
+     * @param value the filter value
+     * @return the predicate
+     * @throws ResponseStatusException with code 400 and message "Bad filter" when the value is shorter than
+     *                                 {@link AdvSpringAnalysisConfigurer#MIN_CONTAINS_LENGTH}
+     */
+    private SearchPredicate containsSubstring(SearchPredicateFactory f, String value) {
+        var length = value.length();
+        if (length < AdvSpringAnalysisConfigurer.MIN_CONTAINS_LENGTH)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad filter");
+        var max = AdvSpringAnalysisConfigurer.MAX_CONTAINS_LENGTH;
+        if (length <= max)
+            return f.match().field(fieldName).matching(value).toPredicate();
+        var bool = f.bool();
+        for (var end = max; ; end = Math.min(end + max, length)) {
+            bool.must(f.match().field(fieldName).matching(value.substring(end - max, end)));
+            if (end == length)
+                break;
+        }
+        return bool.toPredicate();
+    }
+
+    private boolean isSubstringField() {
+        var result = substringField;
+        if (result == null) {
+            var descriptor = Search.mapping(searchSession.toEntityManager().getEntityManagerFactory())
+                    .indexedEntity(entityClass).indexManager().descriptor().field(fieldName);
+            result = descriptor.filter(IndexFieldDescriptor::isValueField)
+                    .flatMap(field -> field.toValueField().type().analyzerName())
+                    .filter(AdvSpringAnalysisConfigurer.CONTAINS_INDEXING::equals)
+                    .isPresent();
+            substringField = result;
+        }
+        return result;
+    }
+
+    /**
+     * The maximum number of matching ids passed to the database, a value matching more entities is rejected, 10000 by
+     * default
+     *
+     * @return the maximum number of matching ids
+     */
+    protected int maxHits() {
+        return DEFAULT_MAX_HITS;
+    }
+
+    /**
+     * Keeps only the entities whose id is in the list
+     *
+     * @param stream the stream to apply the filter on
+     * @param ids    the ids of the matching entities, can be empty
+     * @return the stream after applying the filter
+     */
+    protected abstract JPAJinqStream<Entity> whereIdIn(JPAJinqStream<Entity> stream, List<ID> ids);
+}
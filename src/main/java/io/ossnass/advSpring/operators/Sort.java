@@ -8,10 +8,23 @@ import org.jinq.jpa.JPAJinqStream;
  * Apply a sorting to a {@link JPAJinqStream} in {@link CRUDService}
  * <p>
  * For it to work must be annotated with {@link io.ossnass.advSpring.annotations.SortInfo} annotation
+ * <p>
+ * A sort can optionally support keyset (seek) pagination by overriding both {@link Sort#seek(JPAJinqStream, String)}
+ * and {@link Sort#cursorOf(Object)}, the cursor must contain the sort key and the id of the row so the position is
+ * unique even when the sort key is not, for example:
+ * <code>
+ * stream.where(item -> item.getTitle().compareTo(title) > 0 || (item.getTitle().equals(title) && item.getId() > id))
+ * </code>
  *
  * @param <Entity> the entity(table) we are sorting
  */
 public abstract class Sort<Entity> extends Loggable {
+    /**
+     * True when the subclass overrides both {@link Sort#seek(JPAJinqStream, String)} and {@link Sort#cursorOf(Object)}
+     */
+    private final boolean keyset = overrides("seek", JPAJinqStream.class, String.class)
+            && overrides("cursorOf", Object.class);
+
     /**
      * The actual sorting function
      *
@@ -19,4 +32,48 @@ public abstract class Sort<Entity> extends Loggable {
      * @return the stream after applying the sorting
      */
     public abstract JPAJinqStream<Entity> sort(JPAJinqStream<Entity> stream);
+
+    /**
+     * Keeps only the rows placed after the passed cursor in the order of this sort
+     * <p>
+     * By default, returns null meaning the sort doesn't support keyset pagination
+     *
+     * @param stream the stream to apply the seek on
+     * @param cursor the cursor of the last row of the previous page, as returned by {@link Sort#cursorOf(Object)}
+     * @return the stream after applying the seek, or null if not supported
+     * @throws org.springframework.web.server.ResponseStatusException with code 400 and message "Bad cursor" when the
+     *                                                                cursor cannot be parsed, it is sent by the client
+     */
+    public JPAJinqStream<Entity> seek(JPAJinqStream<Entity> stream, String cursor) {
+        return null;
+    }
+
+    /**
+     * Creates the cursor of a row, it must contain the sort key and the id of the row
+     * <p>
+     * By default, returns null meaning the sort doesn't support keyset pagination
+     *
+     * @param entity the last row of the page
+     * @return the cursor of the row, or null if not supported
+     */
+    public String cursorOf(Entity entity) {
+        return null;
+    }
+
+    /**
+     * Whether the sort supports keyset pagination, known without running a query
+     *
+     * @return true if the sort overrides both {@link Sort#seek(JPAJinqStream, String)} and {@link Sort#cursorOf(Object)}
+     */
+    public final boolean supportsKeyset() {
+        return keyset;
+    }
+
+    private boolean overrides(String name, Class<?>... parameterTypes) {
+        try {
+            return getClass().getMethod(name, parameterTypes).getDeclaringClass() != Sort.class;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,129 @@
+package io.ossnass.advSpring.processor;
+
+import io.ossnass.advSpring.FilterAndSortInfoService;
+import io.ossnass.advSpring.annotations.FilterInfo;
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import io.ossnass.advSpring.annotations.SortInfo;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor writing, at build time, the index of the classes annotated with {@link FilterInfo},
+ * {@link SortInfo} and {@link ServiceInfo} so {@link FilterAndSortInfoService} can load them without scanning the
+ * class path
+ * <p>
+ * Every index is a text file containing one binary class name per line:
+ * <ol>
+ *     <li>{@link RegistryIndexProcessor#FILTERS_INDEX} for filters</li>
+ *     <li>{@link RegistryIndexProcessor#SORTS_INDEX} for sorts</li>
+ *     <li>{@link RegistryIndexProcessor#SERVICES_INDEX} for services</li>
+ * </ol>
+ * On incremental builds the existing index is merged with the new classes, entries of removed classes are skipped when
+ * the index is loaded
+ * <p>
+ * It is registered in <code>META-INF/services</code>, when the project uses <code>annotationProcessorPaths</code> the
+ * advSpring artifact must be added to them
+ */
+@SupportedAnnotationTypes({
+        "io.ossnass.advSpring.annotations.FilterInfo",
+        "io.ossnass.advSpring.annotations.SortInfo",
+        "io.ossnass.advSpring.annotations.ServiceInfo"
+})
+public class RegistryIndexProcessor extends AbstractProcessor {
+    /**
+     * Location of the filters index
+     */
+    public static final String FILTERS_INDEX = "META-INF/advspring/filters";
+    /**
+     * Location of the sorts index
+     */
+    public static final String SORTS_INDEX = "META-INF/advspring/sorts";
+    /**
+     * Location of the services index
+     */
+    public static final String SERVICES_INDEX = "META-INF/advspring/services";
+
+    private final Map<String, Set<String>> indexes = new LinkedHashMap<>();
+
+    public RegistryIndexProcessor() {
+        indexes.put(FILTERS_INDEX, new TreeSet<>());
+        indexes.put(SORTS_INDEX, new TreeSet<>());
+        indexes.put(SERVICES_INDEX, new TreeSet<>());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            indexes.forEach(this::writeIndex);
+            return false;
+        }
+        collect(roundEnv, FilterInfo.class, FILTERS_INDEX);
+        collect(roundEnv, SortInfo.class, SORTS_INDEX);
+        collect(roundEnv, ServiceInfo.class, SERVICES_INDEX);
+        return false;
+    }
+
+    private void collect(RoundEnvironment roundEnv, Class<? extends Annotation> annotation, String index) {
+        for (var element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "@%s can only be placed on a class".formatted(annotation.getSimpleName()), element);
+                continue;
+            }
+            indexes.get(index)
+                    .add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+        }
+    }
+
+    private void writeIndex(String index, Set<String> classes) {
+        var filer = processingEnv.getFiler();
+        //merge with the index of the previous build in case of incremental compilation
+        try {
+            var existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", index);
+            try (var reader = new BufferedReader(
+                    new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                reader.lines()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .forEach(classes::add);
+            }
+        } catch (IOException ignored) {
+            //no previous index
+        }
+        if (classes.isEmpty())
+            return;
+        try {
+            var resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", index);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (var className : classes)
+                    writer.write(className + "\n");
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write %s: %s".formatted(index, ex.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.ossnass.advSpring.test;
+
+import io.ossnass.advSpring.AsyncHookExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncHookExecutorTest {
+    private AsyncHookExecutor executor;
+
+    @AfterEach
+    public void close() {
+        if (executor != null)
+            executor.stop();
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void runsAfterCommit() throws InterruptedException {
+        executor = new AsyncHookExecutor(1, 10, 1, 10, 5);
+        var done = new CountDownLatch(1);
+        TransactionSynchronizationManager.initSynchronization();
+        executor.afterCommit(List.of(new AsyncHookExecutor.Task("commit", 0, done::countDown)));
+        assertThat(executor.statistics()).containsEntry("submitted", 0L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void droppedOnRollback() {
+        executor = new AsyncHookExecutor(1, 10, 1, 10, 5);
+        var calls = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+        executor.afterCommit(List.of(new AsyncHookExecutor.Task("rollback", 0, calls::incrementAndGet)));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        executor.stop();
+        assertThat(calls).hasValue(0);
+        assertThat(executor.statistics()).containsEntry("submitted", 0L);
+    }
+
+    @Test
+    void retriesUpToTheirCount() throws InterruptedException {
+        executor = new AsyncHookExecutor(1, 10, 1, 10, 5);
+        var attempts = new AtomicInteger();
+        var done = new CountDownLatch(1);
+        executor.afterCommit(List.of(
+                new AsyncHookExecutor.Task("failing", 2, () -> {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("always fails");
+                }),
+                new AsyncHookExecutor.Task("next", 0, done::countDown)));
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        //the first call then 2 retries, the next task still runs after it
+        assertThat(attempts).hasValue(3);
+        assertThat(executor.statistics()).containsEntry("retried", 2L)
+                .containsEntry("failed", 1L)
+                .containsEntry("completed", 1L);
+    }
+
+    @Test
+    void retryDelayIsCapped() throws InterruptedException {
+        executor = new AsyncHookExecutor(1, 10, TimeUnit.HOURS.toMillis(1), 10, 5);
+        var attempts = new AtomicInteger();
+        var done = new CountDownLatch(1);
+        executor.afterCommit(List.of(new AsyncHookExecutor.Task("capped", 1, () -> {
+            if (attempts.incrementAndGet() == 1)
+                throw new IllegalStateException("fails once");
+            done.countDown();
+        })));
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void flushedOnShutdown() {
+        executor = new AsyncHookExecutor(1, 100, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1), 5);
+        var calls = new AtomicInteger();
+        var attempts = new AtomicInteger();
+        executor.afterCommit(List.of(new AsyncHookExecutor.Task("delayed", 1, () -> {
+            if (attempts.incrementAndGet() == 1)
+                throw new IllegalStateException("fails once");
+            calls.incrementAndGet();
+        })));
+        for (var i = 0; i < 50; i++)
+            executor.afterCommit(List.of(new AsyncHookExecutor.Task("queued", 0, calls::incrementAndGet)));
+        //the queued tasks and the retry waiting for an hour run before the stop returns
+        executor.stop();
+        assertThat(calls).hasValue(51);
+        assertThat(executor.statistics()).containsEntry("completed", 51L).containsEntry("delayed", 0L);
+    }
+}
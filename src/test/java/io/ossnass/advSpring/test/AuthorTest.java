@@ -1,16 +1,30 @@
 package io.ossnass.advSpring.test;
 
+import io.ossnass.advSpring.EntityChangeTracker;
+import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.ReadOnlyController;
+import io.ossnass.advSpring.test.author.Author;
 import io.ossnass.advSpring.test.author.AuthorDto;
+import io.ossnass.advSpring.test.author.AuthorService;
 import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.ResourceUtils;
 
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -22,6 +36,12 @@ public class AuthorTest {
     private final ArrayList<String> authrNames = new ArrayList<>();
     @LocalServerPort
     int localPort;
+    @Autowired
+    AuthorService authorService;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JinqStreamService streamService;
     ArrayList<AuthorDto> authorList = new ArrayList<>();
     private TestRestTemplate restTemplate;
     private String baseURI;
@@ -85,4 +105,199 @@ public class AuthorTest {
         var res2 = restTemplate.getForObject(baseURI + "authors/ones/{id}", AuthorDto[].class, param);
         assertThat(res2[0].name()).isEqualTo(name);
     }
+
+    @Test
+    @Order(4)
+    void countTest() {
+        var params = new HashMap<String, String>();
+        params.put("name", "Count Author");
+        var filtered = baseURI + "authors/count?filter=name&filterOperation=equals&filterValue={name}";
+        assertThat(restTemplate.getForObject(filtered, Long.class, params)).isEqualTo(0L);
+        var exact = restTemplate.getForObject(baseURI + "authors/count", Long.class);
+        assertThat(restTemplate.getForObject(baseURI + "authors/count?estimate=true", Long.class)).isEqualTo(exact);
+        var added = restTemplate.postForObject(baseURI + "authors", new AuthorDto(null, "Count Author", null),
+                AuthorDto.class);
+        //the cached filtered count is invalidated by the write, the estimate follows it without a query
+        assertThat(restTemplate.getForObject(filtered, Long.class, params)).isEqualTo(1L);
+        assertThat(restTemplate.getForObject(baseURI + "authors/count?estimate=true", Long.class))
+                .isEqualTo(exact + 1);
+        assertThat(restTemplate.getForObject(baseURI + "authors/count", Long.class)).isEqualTo(exact + 1);
+        restTemplate.delete(baseURI + "authors/" + added.id());
+        assertThat(restTemplate.getForObject(filtered, Long.class, params)).isEqualTo(0L);
+        assertThat(restTemplate.getForObject(baseURI + "authors/count?estimate=true", Long.class)).isEqualTo(exact);
+    }
+
+    @Test
+    @Order(5)
+    void hasMoreTest() {
+        var total = restTemplate.getForObject(baseURI + "authors/count", Long.class);
+        var first = restTemplate.getForEntity(baseURI + "authors?start=0&count={count}&hasMore=true",
+                AuthorDto[].class, total - 1);
+        assertThat(first.getBody()).hasSize((int) (total - 1));
+        assertThat(first.getHeaders().getFirst(ReadOnlyController.HAS_MORE_HEADER)).isEqualTo("true");
+        var last = restTemplate.getForEntity(baseURI + "authors?start={start}&count=2&hasMore=true",
+                AuthorDto[].class, total - 1);
+        assertThat(last.getBody()).hasSize(1);
+        assertThat(last.getHeaders().getFirst(ReadOnlyController.HAS_MORE_HEADER)).isEqualTo("false");
+    }
+
+    @Test
+    @Order(6)
+    void resultCacheTest() {
+        var first = authorService.all(null, null, null, null, null, null);
+        var hits = authorService.cacheStatistics().get("result").get("hits");
+        //a change made to the entities of one request is not seen by the next one
+        first.get(0).setName("Not Saved");
+        var second = authorService.all(null, null, null, null, null, null);
+        assertThat(authorService.cacheStatistics().get("result").get("hits")).isEqualTo(hits + 1);
+        assertThat(second).extracting(Author::getId)
+                .containsExactlyElementsOf(first.stream().map(Author::getId).toList());
+        assertThat(second.get(0)).isNotSameAs(first.get(0));
+        assertThat(second.get(0).getName()).isNotEqualTo("Not Saved");
+        var added = restTemplate.postForObject(baseURI + "authors", new AuthorDto(null, "Cached Author", null),
+                AuthorDto.class);
+        assertThat(authorService.all(null, null, null, null, null, null)).hasSize(first.size() + 1);
+        assertThat(authorService.cacheStatistics().get("result").get("hits")).isEqualTo(hits + 1);
+        restTemplate.delete(baseURI + "authors/" + added.id());
+        assertThat(authorService.all(null, null, null, null, null, null)).hasSize(first.size());
+    }
+
+    @Test
+    @Order(7)
+    void batchTest() {
+        var total = restTemplate.getForObject(baseURI + "authors/count", Long.class);
+        var authors = List.of(new AuthorDto(null, "Batch Author 1", null),
+                new AuthorDto(null, AuthorService.REJECTED_NAME, null),
+                new AuthorDto(null, "Batch Author 2", null));
+        var added = restTemplate.postForObject(baseURI + "authors/batch", authors, Map.class);
+        var ids = (List<Integer>) added.get("ids");
+        assertThat(ids).hasSize(3);
+        assertThat(ids.get(0)).isNotNull();
+        assertThat(ids.get(1)).isNull();
+        assertThat(ids.get(2)).isNotNull();
+        //the post hook failed after the insert, the item is reported but still saved
+        assertThat((List<Map<String, Object>>) added.get("errors")).singleElement()
+                .satisfies(error -> assertThat(error).containsEntry("index", 1).containsEntry("status", 422)
+                        .containsEntry("message", "Rejected author"));
+        assertThat(restTemplate.getForObject(baseURI + "authors/count", Long.class)).isEqualTo(total + 3);
+
+        var edits = List.of(new AuthorDto(ids.get(0), "Batch Author 1 Edited", null),
+                new AuthorDto(999999, "Missing Author", null));
+        var edited = restTemplate.exchange(baseURI + "authors/batch", HttpMethod.PUT, new HttpEntity<>(edits),
+                Map.class).getBody();
+        assertThat((List<Integer>) edited.get("ids")).containsExactly(ids.get(0), null);
+        assertThat((List<Map<String, Object>>) edited.get("errors")).singleElement()
+                .satisfies(error -> assertThat(error).containsEntry("index", 1).containsEntry("status", 404));
+        var res = restTemplate.getForObject(baseURI + "authors/ones/" + ids.get(0), AuthorDto[].class);
+        assertThat(res[0].name()).isEqualTo("Batch Author 1 Edited");
+
+        var params = new HashMap<String, String>();
+        params.put("name", AuthorService.REJECTED_NAME);
+        var rejected = restTemplate.getForObject(
+                baseURI + "authors?filter=name&filterOperation=equals&filterValue={name}", AuthorDto[].class, params);
+        assertThat(rejected).hasSize(1);
+        var deleted = restTemplate.exchange(baseURI + "authors/batch?ids={first},999999,{rejected},{last}",
+                HttpMethod.DELETE, null, Map.class, ids.get(0), rejected[0].id(), ids.get(2)).getBody();
+        assertThat((List<Integer>) deleted.get("ids")).containsExactly(ids.get(0), null, rejected[0].id(), ids.get(2));
+        assertThat((List<Map<String, Object>>) deleted.get("errors")).singleElement()
+                .satisfies(error -> assertThat(error).containsEntry("index", 1).containsEntry("status", 404));
+        assertThat(restTemplate.getForObject(baseURI + "authors/count", Long.class)).isEqualTo(total);
+    }
+
+    @Test
+    @Order(8)
+    void virtualThreadTest() {
+        authorService.postAddOnVirtualThread = false;
+        var added = restTemplate.postForObject(baseURI + "authors", new AuthorDto(null, "Virtual Author", null),
+                AuthorDto.class);
+        //spring.threads.virtual.enabled serves the request, and so its hooks, on a virtual thread
+        assertThat(authorService.postAddOnVirtualThread).isTrue();
+        restTemplate.delete(baseURI + "authors/" + added.id());
+    }
+
+    @Test
+    @Order(9)
+    void asyncHookTest() throws Exception {
+        var added = restTemplate.postForObject(baseURI + "authors", new AuthorDto(null, "Async Author", null),
+                AuthorDto.class);
+        authorService.asyncEdit = new CompletableFuture<>();
+        restTemplate.put(baseURI + "authors", new AuthorDto(added.id(), "Async Author Edited", null));
+        var edited = authorService.asyncEdit.get(10, TimeUnit.SECONDS);
+        //a copy of the basic attributes as written, not the entity of the request
+        assertThat(edited.getId()).isEqualTo(added.id());
+        assertThat(edited.getName()).isEqualTo("Async Author Edited");
+        assertThat(edited.getBooks()).isNull();
+        restTemplate.delete(baseURI + "authors/" + added.id());
+    }
+
+    @Test
+    @Order(10)
+    void committedWriteTest() {
+        var count = authorService.count(null, null, null);
+        var version = EntityChangeTracker.version(Author.class);
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        //a rolled back write is never recorded
+        transactionTemplate.executeWithoutResult(status -> {
+            authorService.save(new Author().setName("Rolled Back Author"));
+            status.setRollbackOnly();
+        });
+        assertThat(EntityChangeTracker.version(Author.class)).isEqualTo(version);
+        assertThat(authorService.count(null, null, null)).isEqualTo(count);
+        var added = transactionTemplate.execute(status -> {
+            var author = authorService.save(new Author().setName("Committed Author"));
+            //recorded once committed, the count cached before stays valid for the other readers until then
+            assertThat(EntityChangeTracker.version(Author.class)).isEqualTo(version);
+            return author;
+        });
+        assertThat(EntityChangeTracker.version(Author.class)).isGreaterThan(version);
+        assertThat(authorService.count(null, null, null)).isEqualTo(count + 1);
+        restTemplate.delete(baseURI + "authors/" + added.getId());
+        assertThat(authorService.count(null, null, null)).isEqualTo(count);
+    }
+
+    @Test
+    @Order(11)
+    void resultCacheCommitTest() {
+        var before = authorService.all(null, null, null, null, null, null);
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        var added = transactionTemplate.execute(status -> {
+            var author = authorService.save(new Author().setName("Uncommitted Author"));
+            //the transaction reads its own write instead of the cached result
+            var hits = authorService.cacheStatistics().get("result").get("hits");
+            assertThat(authorService.all(null, null, null, null, null, null)).hasSize(before.size() + 1);
+            assertThat(authorService.cacheStatistics().get("result").get("hits")).isEqualTo(hits);
+            return author;
+        });
+        //refreshed once committed
+        assertThat(authorService.all(null, null, null, null, null, null)).extracting(Author::getId)
+                .hasSize(before.size() + 1).contains(added.getId());
+        restTemplate.delete(baseURI + "authors/" + added.getId());
+        assertThat(authorService.all(null, null, null, null, null, null)).hasSize(before.size());
+    }
+
+    @Test
+    @Order(12)
+    void queryStatisticsTest() {
+        var filter = new String[]{"name"};
+        var operation = new String[]{"equals"};
+        authorService.all(filter, operation, new String[]{"First Shape"}, null, null, null);
+        var statistics = streamService.statistics();
+        //the same shape with another value reuses the generated JPQL
+        authorService.all(filter, operation, new String[]{"Second Shape"}, null, null, null);
+        assertThat(streamService.statistics().get("hits")).isGreaterThan(statistics.get("hits"));
+        assertThat(streamService.statistics().get("misses")).isEqualTo(statistics.get("misses"));
+    }
+
+    @Test
+    @Order(13)
+    void pageCountTest() {
+        var total = authorService.count(null, null, null);
+        var first = authorService.page(null, null, null, 0L, 1L, null);
+        assertThat(first.items()).hasSize(1);
+        assertThat(first.total()).isEqualTo(total);
+        //the total of a page goes through the count cache like count
+        var hits = authorService.cacheStatistics().get("count").get("hits");
+        assertThat(authorService.page(null, null, null, 1L, 1L, null).total()).isEqualTo(total);
+        assertThat(authorService.cacheStatistics().get("count").get("hits")).isEqualTo(hits + 1);
+    }
 }
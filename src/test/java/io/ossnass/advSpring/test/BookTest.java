@@ -1,19 +1,52 @@
 package io.ossnass.advSpring.test;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ossnass.advSpring.PagedResult;
+import io.ossnass.advSpring.SearchIndexer;
 import io.ossnass.advSpring.test.author.SimpleAuthorDto;
+import io.ossnass.advSpring.test.book.Book;
 import io.ossnass.advSpring.test.book.BookDto;
+import io.ossnass.advSpring.test.book.BookService;
+import io.ossnass.advSpring.test.book.ParallelBookService;
+import io.ossnass.advSpring.test.book.SearchBookService;
+import io.ossnass.advSpring.test.bookAuthor.BookAuthor;
+import io.ossnass.advSpring.test.bookAuthor.BookAuthorId;
+import io.ossnass.advSpring.test.bookAuthor.BookAuthorRepository;
+import io.ossnass.advSpring.test.bookAuthor.BookAuthorService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.ResourceUtils;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @Order(2)
@@ -22,6 +55,24 @@ public class BookTest {
     private final ArrayList<String> bookNames = new ArrayList<>();
     @LocalServerPort
     int localPort;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    SearchIndexer searchIndexer;
+    @Autowired
+    BookAuthorService bookAuthorService;
+    @Autowired
+    BookAuthorRepository bookAuthorRepository;
+    @Autowired
+    BookService bookService;
+    @Autowired
+    ParallelBookService parallelBookService;
+    @Autowired
+    SearchBookService searchBookService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
     ArrayList<BookDto> bookList = new ArrayList<>();
     private TestRestTemplate restTemplate;
     private String baseURI;
@@ -91,4 +142,385 @@ public class BookTest {
         var res2 = restTemplate.getForObject(baseURI + "books/ones/{id}", BookDto[].class, param);
         assertThat(res2[0].title()).isEqualTo(name);
     }
+
+    @Test
+    @Order(4)
+    void keysetTest() {
+        var first = restTemplate.getForEntity(baseURI + "books?sort=idasc&count=2&after=", BookDto[].class);
+        assertThat(first.getBody()).hasSize(2);
+        var cursor = first.getHeaders().getFirst("X-Next-Cursor");
+        assertThat(cursor).isNotNull();
+        var param = new HashMap<String, String>();
+        param.put("after", cursor);
+        var second = restTemplate.getForEntity(baseURI + "books?sort=idasc&count=2&after={after}", BookDto[].class, param);
+        assertThat(second.getBody()).hasSize(1);
+        assertThat(second.getBody()[0].id()).isGreaterThan(first.getBody()[1].id());
+        param.put("after", Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("idasc:x".getBytes(StandardCharsets.UTF_8)));
+        var bad = restTemplate.getForEntity(baseURI + "books?sort=idasc&count=2&after={after}", String.class, param);
+        assertThat(bad.getStatusCode().value()).isEqualTo(400);
+        //a sort without keyset support and a count that is not positive are rejected before any query
+        assertThat(restTemplate.getForEntity(baseURI + "books?sort=titleasc&count=2&after=", String.class)
+                .getStatusCode().value()).isEqualTo(400);
+        assertThat(restTemplate.getForEntity(baseURI + "books?sort=idasc&count=0&after=", String.class)
+                .getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    @Order(5)
+    void pageTest() {
+        var type = new ParameterizedTypeReference<PagedResult<BookDto>>() {
+        };
+        var first = restTemplate.exchange(baseURI + "books/page?start=0&count=2&sort=idasc", HttpMethod.GET, null, type)
+                .getBody();
+        assertThat(first.items()).hasSize(2);
+        assertThat(first.total()).isEqualTo(3);
+        var last = restTemplate.exchange(baseURI + "books/page?start=2&count=2&sort=idasc", HttpMethod.GET, null, type)
+                .getBody();
+        assertThat(last.items()).hasSize(1);
+        assertThat(last.total()).isEqualTo(3);
+    }
+
+    @Test
+    @Order(6)
+    void getOnesTest() {
+        var res = restTemplate.getForObject(baseURI + "books/ones/3,1,3", BookDto[].class);
+        assertThat(res).hasSize(2);
+        assertThat(res[0].id()).isEqualTo(3);
+        assertThat(res[1].id()).isEqualTo(1);
+        var bad = restTemplate.getForEntity(baseURI + "books/ones/1,a", String.class);
+        assertThat(bad.getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    @Order(7)
+    void etagTest() {
+        var first = restTemplate.getForEntity(baseURI + "books/count", Long.class);
+        var etag = first.getHeaders().getETag();
+        assertThat(etag).isNotNull();
+        var headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        var second = restTemplate.exchange(baseURI + "books/count", HttpMethod.GET, new HttpEntity<>(headers),
+                Long.class);
+        assertThat(second.getStatusCode().value()).isEqualTo(304);
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        //a rolled back write keeps the ETag
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.save(new Book().setTitle("Rolled Back Book"));
+            status.setRollbackOnly();
+        });
+        assertThat(restTemplate.getForEntity(baseURI + "books/count", Long.class).getHeaders().getETag())
+                .isEqualTo(etag);
+        var added = transactionTemplate.execute(status -> {
+            var book = bookService.save(new Book().setTitle("Committed Book"));
+            //the other requests still read the committed rows
+            var uncommitted = restTemplate.exchange(baseURI + "books/count", HttpMethod.GET,
+                    new HttpEntity<>(headers), Long.class);
+            assertThat(uncommitted.getStatusCode().value()).isEqualTo(304);
+            return book;
+        });
+        var committed = restTemplate.getForEntity(baseURI + "books/count", Long.class);
+        assertThat(committed.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(committed.getBody()).isEqualTo(first.getBody() + 1);
+        restTemplate.delete(baseURI + "books/" + added.getId());
+    }
+
+    @Test
+    @Order(8)
+    void fieldsTest() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        var res = restTemplate.getForObject(baseURI + "books?fields=id,title", Map[].class);
+        assertThat(res).hasSize(3);
+        assertThat(res[0].keySet()).containsExactlyInAnyOrder("id", "title");
+        //the basic attributes are read from the books without loading their authors
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        var slice = restTemplate.getForEntity(baseURI + "books?start=0&count=2&hasMore=true&fields=id,title",
+                Map[].class);
+        assertThat(slice.getBody()).hasSize(2).allSatisfy(book -> assertThat(book.keySet())
+                .containsExactlyInAnyOrder("id", "title"));
+        var keyset = restTemplate.getForEntity(baseURI + "books?after=&count=2&sort=idasc&fields=title", Map[].class);
+        assertThat(keyset.getBody()).hasSize(2).allSatisfy(book -> assertThat(book.keySet()).containsExactly("title"));
+        var withAuthors = restTemplate.getForObject(baseURI + "books?fields=id,authors", Map[].class);
+        assertThat(withAuthors[0].keySet()).containsExactlyInAnyOrder("id", "authors");
+        //the read-only entities stay out of the entity cache
+        var cached = bookAuthorService.cacheStatistics().get("entity").get("size");
+        assertThat(bookAuthorService.getOnes("1,1,2,2", true)).hasSize(2);
+        assertThat(bookAuthorService.cacheStatistics().get("entity").get("size")).isEqualTo(cached);
+    }
+
+    @Test
+    @Order(9)
+    void fetchPlanTest() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        var res = restTemplate.getForObject(baseURI + "books", BookDto[].class);
+        assertThat(res).hasSize(3);
+        assertThat(res).allSatisfy(book -> assertThat(book.authors()).isNotEmpty());
+        //the books then their authors, whatever the number of books
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @Order(10)
+    void batchTest() {
+        var books = List.of(new BookDto(null, "Batch 1", null), new BookDto(null, "Batch 2", null));
+        var added = restTemplate.postForObject(baseURI + "books/batch", books, Map.class);
+        var ids = (List<Integer>) added.get("ids");
+        assertThat(ids).hasSize(2).doesNotContainNull();
+        assertThat((List<?>) added.get("errors")).isEmpty();
+        //a missing id rolls the whole batch back
+        var missing = restTemplate.exchange(baseURI + "books/batch?ids=" + ids.get(0) + "," + 999999,
+                HttpMethod.DELETE, null, Map.class);
+        assertThat(missing.getStatusCode().value()).isEqualTo(404);
+        assertThat(restTemplate.getForObject(baseURI + "books/count", Long.class)).isEqualTo(5);
+        var deleted = restTemplate.exchange(baseURI + "books/batch?ids=" + ids.get(0) + "," + ids.get(1),
+                HttpMethod.DELETE, null, Map.class);
+        assertThat((List<Integer>) deleted.getBody().get("ids")).containsExactlyElementsOf(ids);
+        assertThat(restTemplate.getForObject(baseURI + "books/count", Long.class)).isEqualTo(3);
+    }
+
+    @Test
+    @Order(11)
+    void searchFilterTest() {
+        var all = restTemplate.getForObject(
+                baseURI + "books?filter=title&filterOperation=matches&filterValue=kite&sort=idasc", BookDto[].class);
+        assertThat(all).extracting(BookDto::title).containsOnly(bookNames.get(2)).hasSize(2);
+        var page = restTemplate.getForObject(
+                baseURI + "books?filter=title&filterOperation=matches&filterValue=kite&sort=idasc&start=1&count=1",
+                BookDto[].class);
+        assertThat(page).extracting(BookDto::id).containsExactly(all[1].id());
+        var none = restTemplate.getForObject(
+                baseURI + "books?filter=title&filterOperation=matches&filterValue=unknown", BookDto[].class);
+        assertThat(none).isEmpty();
+    }
+
+    @Test
+    @Order(12)
+    void searchTest() {
+        var res = restTemplate.exchange(baseURI + "books/search?q=kite&count=1", HttpMethod.GET, null,
+                new ParameterizedTypeReference<PagedResult<BookDto>>() {
+                }).getBody();
+        assertThat(res.total()).isEqualTo(2);
+        assertThat(res.items()).hasSize(1);
+        assertThat(res.items().get(0).title()).isEqualTo(bookNames.get(2));
+        assertThat(res.items().get(0).authors()).isNotEmpty();
+        var bad = restTemplate.getForEntity(baseURI + "books/search?q=", String.class);
+        assertThat(bad.getStatusCode().value()).isEqualTo(400);
+        var filtered = restTemplate.getForObject(
+                baseURI + "books/search?q=kite&filter=title&filterOperation=matches&filterValue=runner",
+                PagedResult.class);
+        assertThat(filtered.total()).isEqualTo(2L);
+        var excluded = restTemplate.getForObject(
+                baseURI + "books/search?q=kite&filter=title&filterOperation=matches&filterValue=digital",
+                PagedResult.class);
+        assertThat(excluded.total()).isEqualTo(0L);
+        assertThat(excluded.items()).isEmpty();
+        var notIndexed = restTemplate.getForEntity(
+                baseURI + "books/search?q=kite&filter=title&filterOperation=equals&filterValue=x", String.class);
+        assertThat(notIndexed.getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    @Order(13)
+    void autocompleteTest() {
+        var res = restTemplate.getForObject(baseURI + "books/autocomplete?q=dig ima&fields=id,title", Map[].class);
+        assertThat(res).hasSize(1);
+        assertThat(res[0].get("title")).isEqualTo(bookNames.get(1));
+        assertThat(restTemplate.getForObject(baseURI + "books/autocomplete?q=ki", Map[].class)).hasSize(2);
+        assertThat(restTemplate.getForObject(baseURI + "books/autocomplete?q=kix", Map[].class)).isEmpty();
+        //the filters are part of the cache key
+        assertThat(restTemplate.getForObject(
+                baseURI + "books/autocomplete?q=ki&filter=title&filterOperation=matches&filterValue=digital",
+                Map[].class)).isEmpty();
+        assertThat(restTemplate.getForObject(
+                baseURI + "books/autocomplete?q=ki&filter=title&filterOperation=matches&filterValue=runner",
+                Map[].class)).hasSize(2);
+        var bad = restTemplate.getForEntity(
+                baseURI + "books/autocomplete?q=ki&filter=title&filterOperation=equals&filterValue=x", String.class);
+        assertThat(bad.getStatusCode().value()).isEqualTo(400);
+        //a change made to the entities of one request is not seen by the next one
+        var first = bookService.autocomplete("dig ima", null);
+        var hits = bookService.cacheStatistics().get("autocomplete").get("hits");
+        first.get(0).setTitle("Not Saved");
+        var second = bookService.autocomplete("dig ima", null);
+        assertThat(bookService.cacheStatistics().get("autocomplete").get("hits")).isEqualTo(hits + 1);
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0)).isNotSameAs(first.get(0));
+        assertThat(second.get(0).getTitle()).isEqualTo(bookNames.get(1));
+    }
+
+    @Test
+    @Order(14)
+    void facetsTest() {
+        var all = restTemplate.getForObject(baseURI + "books/facets?field=title_facet", Map.class);
+        assertThat((Map<String, Integer>) all.get("title_facet"))
+                .containsExactly(Map.entry(bookNames.get(2), 2), Map.entry(bookNames.get(1), 1));
+        var filtered = restTemplate.getForObject(
+                baseURI + "books/facets?filter=title&filterOperation=matches&filterValue=kite", Map.class);
+        assertThat((Map<String, Integer>) filtered.get("title_facet")).containsExactly(Map.entry(bookNames.get(2), 2));
+        var bad = restTemplate.getForEntity(
+                baseURI + "books/facets?filter=title&filterOperation=equals&filterValue=x", String.class);
+        assertThat(bad.getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    @Order(15)
+    void reindexTest() {
+        var run = searchIndexer.reindex("book", null);
+        run.completion().join();
+        var report = run.report();
+        assertThat(report.get("status")).isEqualTo("completed");
+        assertThat(report.get("documentsAdded")).isEqualTo(restTemplate.getForObject(baseURI + "books/count", Long.class));
+        assertThat(restTemplate.getForObject(baseURI + "books/search?q=kite", PagedResult.class).total()).isEqualTo(2L);
+        assertThatThrownBy(() -> searchIndexer.reindex("book", "yesterday"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> searchIndexer.reindex("author", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @Order(16)
+    void streamTest() throws IOException {
+        var res = restTemplate.getForEntity(baseURI + "books/stream?sort=idasc", String.class);
+        assertThat(res.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_NDJSON)).isTrue();
+        var objectMapper = new ObjectMapper();
+        var ids = new ArrayList<Integer>();
+        for (var line : res.getBody().split("\n"))
+            ids.add(objectMapper.readValue(line, BookDto.class).id());
+        assertThat(ids).isSorted()
+                .hasSize(restTemplate.getForObject(baseURI + "books/count", Long.class).intValue());
+        var bad = restTemplate.getForEntity(baseURI + "books/stream", String.class);
+        assertThat(bad.getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    @Order(17)
+    void mandatoryFilterTest() {
+        assertThatThrownBy(() -> bookAuthorService.count(null, null, null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode().value()).isEqualTo(400));
+        assertThatThrownBy(() -> bookAuthorService.all(null, null, null, null, null, null))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(bookAuthorService.count(new String[]{"bookId"}, new String[]{"equals"}, new String[]{"1"}))
+                .isPositive();
+    }
+
+    @Test
+    @Order(18)
+    void compositeGetOnesTest() {
+        var res = bookAuthorService.getOnes("3,3,1,1,9,9,2,2,3,3,2,3");
+        assertThat(res).extracting(item -> item.getBookId() + "-" + item.getAuthorId())
+                .containsExactly("3-3", "1-1", "2-2", "2-3");
+    }
+
+    @Test
+    @Order(19)
+    void entityCacheTest() {
+        var id = new BookAuthorId(3, 1);
+        bookAuthorService.save(new BookAuthor().setBookId(3).setAuthorId(1));
+        var loaded = bookAuthorService.getById(id);
+        var hits = bookAuthorService.cacheStatistics().get("entity").get("hits");
+        var cached = bookAuthorService.getById(id);
+        assertThat(bookAuthorService.cacheStatistics().get("entity").get("hits")).isEqualTo(hits + 1);
+        //every hit is a new detached copy, a change made by a caller is not seen by the next one
+        assertThat(cached).isNotSameAs(loaded);
+        cached.getBook().setTitle("Not Saved");
+        var again = bookAuthorService.getById(id);
+        assertThat(again).isNotSameAs(cached);
+        assertThat(again.getBook().getTitle()).isEqualTo(loaded.getBook().getTitle());
+        bookAuthorService.delete(cached);
+        assertThatThrownBy(() -> bookAuthorService.getById(id)).isInstanceOf(EntityNotFoundException.class);
+        //deleted behind the service, the cached copy is stale
+        bookAuthorService.save(new BookAuthor().setBookId(3).setAuthorId(1));
+        var stale = bookAuthorService.getById(id);
+        bookAuthorRepository.deleteById(id);
+        assertThat(bookAuthorService.getById(id).getBookId()).isEqualTo(3);
+        assertThatThrownBy(() -> bookAuthorService.delete(stale)).isInstanceOf(EntityNotFoundException.class);
+        assertThatThrownBy(() -> bookAuthorService.getById(id)).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    @Order(20)
+    void parallelPostFetchTest() {
+        parallelBookService.postFetchChunks.set(0);
+        parallelBookService.postFetchMaxRunning.set(0);
+        parallelBookService.postFetchLoaded.set(0);
+        //read the books like a request would, in a read-only transaction
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        var res = transactionTemplate.execute(status -> parallelBookService.getOnes("3,1,2"));
+        //the chunks complete out of order, the result keeps the order of the ids
+        assertThat(res).extracting(Book::getId).containsExactly(3, 1, 2);
+        //one chunk per book, at most 2 of them at the same time for this call
+        assertThat(parallelBookService.postFetchChunks).hasValue(3);
+        assertThat(parallelBookService.postFetchMaxRunning.get()).isBetween(1, 2);
+        //the fetched associations are loaded before the entities are detached
+        assertThat(parallelBookService.postFetchLoaded).hasValue(3);
+    }
+
+    @Test
+    @Order(21)
+    void containsFilterTest() {
+        var uri = baseURI + "books?filter=title_contains&filterOperation=contains&filterValue={value}&sort=idasc";
+        //across words and case-insensitive
+        assertThat(restTemplate.getForObject(uri, BookDto[].class, "ITE RUN"))
+                .extracting(BookDto::title).containsOnly(bookNames.get(2)).hasSize(2);
+        //longer than the indexed substrings
+        assertThat(restTemplate.getForObject(uri, BookDto[].class, bookNames.get(1).toLowerCase()))
+                .extracting(BookDto::title).containsExactly(bookNames.get(1));
+        assertThat(restTemplate.getForObject(uri, BookDto[].class, "unknown")).isEmpty();
+        var tooShort = restTemplate.getForEntity(uri, String.class, "ki");
+        assertThat(tooShort.getStatusCode().value()).isEqualTo(400);
+    }
+
+    @Test
+    @Order(22)
+    void incrementalReindexTest() {
+        var added = restTemplate.postForObject(baseURI + "books", new BookDto(null, "Incremental Book", null),
+                BookDto.class);
+        var since = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        //written behind Hibernate, the index still has the previous title
+        jdbcTemplate.update("UPDATE books SET name = ?, modified_at = ? WHERE id = ?", "Reindexed Book",
+                LocalDateTime.now(), added.id());
+        assertThat(restTemplate.getForObject(baseURI + "books/search?q=reindexed", PagedResult.class).total())
+                .isEqualTo(0L);
+        var run = searchIndexer.reindex("book", since.toString());
+        run.completion().join();
+        var report = run.report();
+        assertThat(report.get("status")).isEqualTo("completed");
+        assertThat(report.get("since")).isEqualTo(since);
+        //only the modified row, the index is not purged
+        assertThat(report.get("documentsAdded")).isEqualTo(1L);
+        var found = restTemplate.getForObject(baseURI + "books/search?q=reindexed", PagedResult.class);
+        assertThat(found.total()).isEqualTo(1L);
+        assertThat(restTemplate.getForObject(baseURI + "books/search?q=kite", PagedResult.class).total())
+                .isEqualTo(2L);
+        //a time before every row reindexes all of them
+        var all = searchIndexer.reindex("book", "2000-01-01");
+        all.completion().join();
+        assertThat(all.report().get("documentsAdded"))
+                .isEqualTo(restTemplate.getForObject(baseURI + "books/count", Long.class));
+        restTemplate.delete(baseURI + "books/" + added.id());
+        assertThat(restTemplate.getForObject(baseURI + "books/search?q=reindexed", PagedResult.class).total())
+                .isEqualTo(0L);
+    }
+
+    @Test
+    @Order(23)
+    void mandatorySearchFilterTest() {
+        //the search and the autocomplete validate the mandatory filters like the listing
+        assertThatThrownBy(() -> searchBookService.search("kite", null, null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode().value()).isEqualTo(400));
+        assertThatThrownBy(() -> searchBookService.autocomplete("ki", null))
+                .isInstanceOf(ResponseStatusException.class);
+        var filter = new String[]{"title"};
+        var operation = new String[]{"matches"};
+        assertThat(searchBookService.search("kite", filter, operation, new String[]{"kite"}, null, null).total())
+                .isEqualTo(2L);
+        //then applied in the index with the query
+        assertThat(searchBookService.search("kite", filter, operation, new String[]{"unknown"}, null, null).total())
+                .isEqualTo(0L);
+        assertThat(searchBookService.autocomplete("ki", filter, operation, new String[]{"unknown"}, null)).isEmpty();
+    }
 }
@@ -0,0 +1,56 @@
+package io.ossnass.advSpring.test;
+
+import io.ossnass.advSpring.test.publisher.Publisher;
+import io.ossnass.advSpring.test.publisher.PublisherService;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Order(4)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class PublisherTest {
+
+    @Autowired
+    PublisherService publisherService;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @Order(1)
+    void batchingTest() {
+        var publishers = new ArrayList<Publisher>();
+        for (var i = 0; i < 25; i++)
+            publishers.add(new Publisher().setName("Publisher " + i));
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        var added = publisherService.saveAll(publishers);
+        assertThat(added.ids()).hasSize(25).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(added.errors()).isEmpty();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(25);
+        //the ids are allocated by 50 from the sequence and the inserts sent by groups of 10: one insert statement
+        //per group, no existence check since the ids are generated
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 + 2);
+        assertThat(publisherService.count(null, null, null)).isEqualTo(25);
+    }
+
+    @Test
+    @Order(2)
+    void duplicateTest() {
+        var existing = publisherService.all(null, null, null, 0L, 1L, null).get(0);
+        var publishers = List.of(new Publisher().setName("New Publisher"),
+                new Publisher().setId(existing.getId()).setName("Duplicate Publisher"));
+        assertThatThrownBy(() -> publisherService.saveAll(publishers)).isInstanceOf(EntityExistsException.class);
+        //the whole batch is rolled back
+        assertThat(publisherService.count(null, null, null)).isEqualTo(25);
+    }
+}
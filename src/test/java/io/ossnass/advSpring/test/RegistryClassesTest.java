@@ -0,0 +1,60 @@
+package io.ossnass.advSpring.test;
+
+import io.ossnass.advSpring.RegistryClasses;
+import io.ossnass.advSpring.processor.RegistryIndexProcessor;
+import io.ossnass.advSpring.test.author.AuthorService;
+import io.ossnass.advSpring.test.author.filters.NameFilter;
+import io.ossnass.advSpring.test.book.BookService;
+import io.ossnass.advSpring.test.book.filters.TitleFilter;
+import io.ossnass.advSpring.test.book.sorts.IdSort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RegistryClassesTest {
+    @TempDir
+    Path indexedRoot;
+    private URLClassLoader classLoader;
+
+    /**
+     * An indexed class path root listing a part of the test classes, with an otherwise empty package
+     */
+    @BeforeEach
+    public void init() throws IOException {
+        write(RegistryIndexProcessor.FILTERS_INDEX, TitleFilter.class.getName());
+        write(RegistryIndexProcessor.SORTS_INDEX, IdSort.class.getName());
+        write(RegistryIndexProcessor.SERVICES_INDEX, BookService.class.getName());
+        Files.createDirectories(indexedRoot.resolve("io/ossnass/advSpring/indexed"));
+        classLoader = new URLClassLoader(new URL[]{indexedRoot.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    @Test
+    void indexCoversPackages() {
+        var registry = RegistryClasses.load(classLoader, new String[]{"io.ossnass.advSpring.indexed"});
+        assertThat(registry.filters()).containsExactly(TitleFilter.class);
+        assertThat(registry.sorts()).containsExactly(IdSort.class);
+        assertThat(registry.services()).containsExactly(BookService.class);
+    }
+
+    @Test
+    void unindexedPackagesAreScanned() {
+        var registry = RegistryClasses.load(classLoader, new String[]{"io.ossnass.advSpring.test"});
+        assertThat(registry.filters()).contains(TitleFilter.class, NameFilter.class).doesNotHaveDuplicates();
+        assertThat(registry.sorts()).contains(IdSort.class).doesNotHaveDuplicates();
+        assertThat(registry.services()).contains(BookService.class, AuthorService.class).doesNotHaveDuplicates();
+    }
+
+    private void write(String index, String className) throws IOException {
+        var file = indexedRoot.resolve(index);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, className + "\n");
+    }
+}
@@ -3,17 +3,39 @@ package io.ossnass.advSpring.test.author;
 import io.ossnass.advSpring.CRUDService;
 import io.ossnass.advSpring.FilterAndSortInfoService;
 import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.annotations.BatchFailureMode;
+import io.ossnass.advSpring.annotations.CacheInfo;
 import io.ossnass.advSpring.annotations.ServiceInfo;
+import io.ossnass.advSpring.annotations.WriteMode;
+import io.ossnass.advSpring.annotations.hooks.PostAdd;
+import io.ossnass.advSpring.annotations.hooks.PostEdit;
 import io.ossnass.advSpring.annotations.hooks.PreDelete;
 import io.ossnass.advSpring.test.bookAuthor.BookAuthorRepository;
 import jakarta.persistence.EntityManager;
 import org.hibernate.search.mapper.orm.session.SearchSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
 
 @Service
-@ServiceInfo(id = "author", entityClass = Author.class)
+@ServiceInfo(id = "author", entityClass = Author.class, writeMode = WriteMode.LEAN, countCacheSize = 100,
+        resultCache = @CacheInfo(size = 100), batchFailureMode = BatchFailureMode.SKIP)
 public class AuthorService extends CRUDService<Author, Integer> {
+    /**
+     * The name of the authors rejected by {@link AuthorService#postAdd(Author, Object)}
+     */
+    public static final String REJECTED_NAME = "Rejected Author";
+    /**
+     * Whether the last {@link AuthorService#postAdd(Author, Object)} ran on a virtual thread
+     */
+    public volatile boolean postAddOnVirtualThread;
+    /**
+     * Completed with the author received by {@link AuthorService#postEditAsync(Author)}
+     */
+    public volatile CompletableFuture<Author> asyncEdit = new CompletableFuture<>();
     private final BookAuthorRepository bookAuthorRepository;
 
     public AuthorService(FilterAndSortInfoService filterService,
@@ -30,6 +52,18 @@ public class AuthorService extends CRUDService<Author, Integer> {
         return dbObject.setName(requestEntity.getName());
     }
 
+    @PostAdd
+    public void postAdd(Author entity, Object extra) {
+        postAddOnVirtualThread = Thread.currentThread().isVirtual();
+        if (REJECTED_NAME.equals(entity.getName()))
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Rejected author");
+    }
+
+    @PostEdit(async = true)
+    public void postEditAsync(Author entity) {
+        asyncEdit.complete(entity);
+    }
+
     @PreDelete
     public void preDelete(Author entity) {
         var books = bookAuthorRepository.findByAuthorId(entity.getId());
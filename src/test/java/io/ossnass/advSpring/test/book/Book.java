@@ -1,15 +1,23 @@
 package io.ossnass.advSpring.test.book;
 
+import io.ossnass.advSpring.AdvSpringAnalysisConfigurer;
 import io.ossnass.advSpring.Deletable;
 import io.ossnass.advSpring.test.bookAuthor.BookAuthor;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.search.engine.backend.types.Aggregable;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.KeywordField;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Indexed
 @Table(name = "books")
 @Accessors(chain = true)
 @Getter
@@ -21,8 +29,18 @@ public class Book extends Deletable {
     private Integer id;
 
     @Column(name = "name", nullable = false)
+    @FullTextField
+    @FullTextField(name = "title_autocomplete", analyzer = AdvSpringAnalysisConfigurer.AUTOCOMPLETE_INDEXING,
+            searchAnalyzer = AdvSpringAnalysisConfigurer.AUTOCOMPLETE_SEARCH)
+    @FullTextField(name = "title_contains", analyzer = AdvSpringAnalysisConfigurer.CONTAINS_INDEXING,
+            searchAnalyzer = AdvSpringAnalysisConfigurer.CONTAINS_SEARCH)
+    @KeywordField(name = "title_facet", aggregable = Aggregable.YES)
     private String title;
 
+    @Column(name = "modified_at")
+    @UpdateTimestamp
+    private LocalDateTime modifiedAt;
+
     @OneToMany(targetEntity = BookAuthor.class, mappedBy = "bookId")
     private List<BookAuthor> authors;
 }
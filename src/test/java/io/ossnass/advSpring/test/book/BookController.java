@@ -3,10 +3,12 @@ package io.ossnass.advSpring.test.book;
 import io.ossnass.advSpring.CRUDController;
 import io.ossnass.advSpring.CRUDService;
 import io.ossnass.advSpring.annotations.ControllerInfo;
+import io.ossnass.advSpring.test.author.Author;
+import io.ossnass.advSpring.test.bookAuthor.BookAuthor;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-@ControllerInfo(mapper = BookMapper.class)
+@ControllerInfo(mapper = BookMapper.class, etag = true, etagDependsOn = {Author.class, BookAuthor.class})
 @RestController
 @RequestMapping("/api/v1/books")
 public class BookController extends CRUDController<Book, Integer, BookDto> {
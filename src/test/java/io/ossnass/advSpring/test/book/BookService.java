@@ -16,7 +16,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 
-@ServiceInfo(id = "book", entityClass = Book.class)
+@ServiceInfo(id = "book", entityClass = Book.class, fetch = "authors.author", searchFields = "title",
+        autocompleteFields = "title_autocomplete", facetFields = "title_facet", modifiedField = "modifiedAt")
 @Service
 public class BookService extends CRUDService<Book, Integer> {
     private final BookAuthorService bookAuthorService;
@@ -62,6 +63,4 @@ public class BookService extends CRUDService<Book, Integer> {
                     .setAuthor(authorRepository.findById(author.getAuthorId()).get())).toList());
         }
     }
-
-
 }
@@ -0,0 +1,72 @@
+package io.ossnass.advSpring.test.book;
+
+import io.ossnass.advSpring.FilterAndSortInfoService;
+import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.ReadOnlyService;
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import io.ossnass.advSpring.annotations.hooks.PostFetch;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the books with a parallel {@link PostFetch} hook, kept apart from {@link BookService} so the other tests don't
+ * wait for the hook
+ */
+@ServiceInfo(id = "parallelBook", entityClass = Book.class, fetch = "authors.author")
+@Service
+public class ParallelBookService extends ReadOnlyService<Book, Integer> {
+    /**
+     * The chunks passed to {@link ParallelBookService#postFetch(List, boolean)}
+     */
+    public final AtomicInteger postFetchChunks = new AtomicInteger();
+    /**
+     * The chunks of {@link ParallelBookService#postFetch(List, boolean)} running now and at most
+     */
+    public final AtomicInteger postFetchRunning = new AtomicInteger();
+    public final AtomicInteger postFetchMaxRunning = new AtomicInteger();
+    /**
+     * The chunks whose books had their authors loaded
+     */
+    public final AtomicInteger postFetchLoaded = new AtomicInteger();
+
+    public ParallelBookService(FilterAndSortInfoService filterService,
+                               JpaRepository<Book, Integer> repository,
+                               EntityManager em,
+                               SearchSession searchSession,
+                               JinqStreamService streamService) {
+        super(filterService, em, searchSession, streamService, repository);
+    }
+
+    @Override
+    protected Integer partsToIdClass(String[] idParts) {
+        return Integer.parseInt(idParts[0]);
+    }
+
+    @Override
+    protected Integer idFieldCount() {
+        return 1;
+    }
+
+    @PostFetch(parallel = true, chunkSize = 1, maxConcurrency = 2)
+    public List<Book> postFetch(List<Book> books, boolean isAll) {
+        postFetchChunks.incrementAndGet();
+        postFetchMaxRunning.accumulateAndGet(postFetchRunning.incrementAndGet(), Math::max);
+        try {
+            if (Hibernate.isInitialized(books.get(0).getAuthors()))
+                postFetchLoaded.incrementAndGet();
+            //the chunks of the odd ids complete last, the result must keep the order of the chunks anyway
+            Thread.sleep(books.get(0).getId() % 2 == 1 ? 30 : 5);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            postFetchRunning.decrementAndGet();
+        }
+        return books;
+    }
+}
@@ -0,0 +1,37 @@
+package io.ossnass.advSpring.test.book;
+
+import io.ossnass.advSpring.FilterAndSortInfoService;
+import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.ReadOnlyService;
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import io.ossnass.advSpring.test.book.filters.MandatoryTitleFilter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Searches the books with the mandatory {@link MandatoryTitleFilter}, applied in the index with the query
+ */
+@ServiceInfo(id = "searchBook", entityClass = Book.class, searchFields = "title",
+        autocompleteFields = "title_autocomplete")
+@Service
+public class SearchBookService extends ReadOnlyService<Book, Integer> {
+    public SearchBookService(FilterAndSortInfoService filterService,
+                             JpaRepository<Book, Integer> repository,
+                             EntityManager em,
+                             SearchSession searchSession,
+                             JinqStreamService streamService) {
+        super(filterService, em, searchSession, streamService, repository);
+    }
+
+    @Override
+    protected Integer partsToIdClass(String[] idParts) {
+        return Integer.parseInt(idParts[0]);
+    }
+
+    @Override
+    protected Integer idFieldCount() {
+        return 1;
+    }
+}
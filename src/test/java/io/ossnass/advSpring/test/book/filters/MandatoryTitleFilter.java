@@ -0,0 +1,29 @@
+package io.ossnass.advSpring.test.book.filters;
+
+import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.annotations.FilterInfo;
+import io.ossnass.advSpring.operators.Operation;
+import io.ossnass.advSpring.operators.SearchFilter;
+import io.ossnass.advSpring.test.book.Book;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.jinq.jpa.JPAJinqStream;
+import org.jinq.jpa.JPQL;
+
+import java.util.List;
+
+@FilterInfo(serviceId = "searchBook", operation = Operation.MATCHES, fieldName = "title")
+public class MandatoryTitleFilter extends SearchFilter<Book, Integer> {
+    public MandatoryTitleFilter(SearchSession searchSession, JinqStreamService streamService) {
+        super(searchSession, streamService);
+    }
+
+    @Override
+    protected JPAJinqStream<Book> whereIdIn(JPAJinqStream<Book> stream, List<Integer> ids) {
+        return stream.where(item -> JPQL.isInList(item.getId(), ids));
+    }
+
+    @Override
+    public boolean isMandatory() {
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package io.ossnass.advSpring.test.book.filters;
+
+import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.annotations.FilterInfo;
+import io.ossnass.advSpring.operators.Operation;
+import io.ossnass.advSpring.operators.SearchFilter;
+import io.ossnass.advSpring.test.book.Book;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.jinq.jpa.JPAJinqStream;
+import org.jinq.jpa.JPQL;
+
+import java.util.List;
+
+@FilterInfo(serviceId = "book", operation = Operation.MATCHES, fieldName = "title")
+public class TitleMatchesFilter extends SearchFilter<Book, Integer> {
+    public TitleMatchesFilter(SearchSession searchSession, JinqStreamService streamService) {
+        super(searchSession, streamService);
+    }
+
+    @Override
+    protected JPAJinqStream<Book> whereIdIn(JPAJinqStream<Book> stream, List<Integer> ids) {
+        return stream.where(item -> JPQL.isInList(item.getId(), ids));
+    }
+}
@@ -0,0 +1,33 @@
+package io.ossnass.advSpring.test.book.sorts;
+
+import io.ossnass.advSpring.annotations.SortInfo;
+import io.ossnass.advSpring.operators.Sort;
+import io.ossnass.advSpring.operators.SortingDirection;
+import io.ossnass.advSpring.test.book.Book;
+import org.jinq.jpa.JPAJinqStream;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+@SortInfo(serviceId = "book", fieldName = "id", sortingDirection = SortingDirection.Ascending)
+public class IdSort extends Sort<Book> {
+    @Override
+    public JPAJinqStream<Book> sort(JPAJinqStream<Book> stream) {
+        return stream.sortedBy(item -> item.getId());
+    }
+
+    @Override
+    public JPAJinqStream<Book> seek(JPAJinqStream<Book> stream, String cursor) {
+        int id;
+        try {
+            id = Integer.parseInt(cursor);
+        } catch (NumberFormatException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad cursor");
+        }
+        return stream.where(item -> item.getId() > id);
+    }
+
+    @Override
+    public String cursorOf(Book entity) {
+        return entity.getId().toString();
+    }
+}
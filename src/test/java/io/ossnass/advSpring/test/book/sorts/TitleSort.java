@@ -0,0 +1,15 @@
+package io.ossnass.advSpring.test.book.sorts;
+
+import io.ossnass.advSpring.annotations.SortInfo;
+import io.ossnass.advSpring.operators.Sort;
+import io.ossnass.advSpring.operators.SortingDirection;
+import io.ossnass.advSpring.test.book.Book;
+import org.jinq.jpa.JPAJinqStream;
+
+@SortInfo(serviceId = "book", fieldName = "title", sortingDirection = SortingDirection.Ascending)
+public class TitleSort extends Sort<Book> {
+    @Override
+    public JPAJinqStream<Book> sort(JPAJinqStream<Book> stream) {
+        return stream.sortedBy(item -> item.getTitle());
+    }
+}
@@ -3,13 +3,14 @@ package io.ossnass.advSpring.test.bookAuthor;
 import io.ossnass.advSpring.CRUDService;
 import io.ossnass.advSpring.FilterAndSortInfoService;
 import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.annotations.CacheInfo;
 import io.ossnass.advSpring.annotations.ServiceInfo;
 import jakarta.persistence.EntityManager;
 import org.hibernate.search.mapper.orm.session.SearchSession;
 import org.springframework.stereotype.Service;
 
 @Service
-@ServiceInfo(id = "bookAuthor", entityClass = BookAuthor.class)
+@ServiceInfo(id = "bookAuthor", entityClass = BookAuthor.class, cache = @CacheInfo(size = 100, ttlSeconds = 60))
 public class BookAuthorService extends CRUDService<BookAuthor, BookAuthorId> {
     public BookAuthorService(FilterAndSortInfoService filterService, BookAuthorRepository repository, EntityManager em, SearchSession searchSession, JinqStreamService streamService) {
         super(filterService, repository, em, searchSession, streamService);
@@ -0,0 +1,34 @@
+package io.ossnass.advSpring.test.bookAuthor.filters;
+
+import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.annotations.FilterInfo;
+import io.ossnass.advSpring.operators.Filter;
+import io.ossnass.advSpring.operators.Operation;
+import io.ossnass.advSpring.test.bookAuthor.BookAuthor;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.jinq.jpa.JPAJinqStream;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+@FilterInfo(serviceId = "bookAuthor", operation = Operation.EQUALS, fieldName = "bookId")
+public class BookIdFilter extends Filter<BookAuthor> {
+    public BookIdFilter(SearchSession searchSession, JinqStreamService streamService) {
+        super(searchSession, streamService);
+    }
+
+    @Override
+    public JPAJinqStream<BookAuthor> addFilter(JPAJinqStream<BookAuthor> stream, String value) {
+        int bookId;
+        try {
+            bookId = Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad filter");
+        }
+        return stream.where(item -> item.getBookId() == bookId);
+    }
+
+    @Override
+    public boolean isMandatory() {
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package io.ossnass.advSpring.test.publisher;
+
+import io.ossnass.advSpring.Deletable;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Entity
+@Table(name = "publishers")
+@Getter
+@Setter
+@Accessors(chain = true)
+public class Publisher extends Deletable {
+
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "publisher_seq")
+    @SequenceGenerator(name = "publisher_seq", sequenceName = "publisher_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+}
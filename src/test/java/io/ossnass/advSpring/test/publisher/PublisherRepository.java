@@ -0,0 +1,8 @@
+package io.ossnass.advSpring.test.publisher;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PublisherRepository extends JpaRepository<Publisher, Integer> {
+}
@@ -0,0 +1,33 @@
+package io.ossnass.advSpring.test.publisher;
+
+import io.ossnass.advSpring.CRUDService;
+import io.ossnass.advSpring.FilterAndSortInfoService;
+import io.ossnass.advSpring.JinqStreamService;
+import io.ossnass.advSpring.annotations.ServiceInfo;
+import jakarta.persistence.EntityManager;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.springframework.stereotype.Service;
+
+@Service
+@ServiceInfo(id = "publisher", entityClass = Publisher.class, batchSize = 10)
+public class PublisherService extends CRUDService<Publisher, Integer> {
+    public PublisherService(FilterAndSortInfoService filterService, PublisherRepository repository, EntityManager em,
+                            SearchSession searchSession, JinqStreamService streamService) {
+        super(filterService, repository, em, searchSession, streamService);
+    }
+
+    @Override
+    protected Publisher processUpdate(Publisher dbObject, Publisher requestEntity) {
+        return dbObject.setName(requestEntity.getName());
+    }
+
+    @Override
+    protected Integer partsToIdClass(String[] idParts) {
+        return Integer.parseInt(idParts[0]);
+    }
+
+    @Override
+    protected Integer idFieldCount() {
+        return 1;
+    }
+}
@@ -0,0 +1,8 @@
+CREATE SEQUENCE publisher_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE publishers
+(
+    id      INTEGER      NOT NULL PRIMARY KEY,
+    name    varchar(255) NOT NULL,
+    deleted BOOLEAN DEFAULT FALSE
+);
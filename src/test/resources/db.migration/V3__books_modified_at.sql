@@ -0,0 +1 @@
+ALTER TABLE books ADD COLUMN modified_at TIMESTAMP;